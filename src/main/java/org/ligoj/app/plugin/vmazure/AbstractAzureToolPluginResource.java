@@ -3,25 +3,43 @@
  */
 package org.ligoj.app.plugin.vmazure;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.aad.adal4j.AuthenticationContext;
 import com.microsoft.aad.adal4j.ClientCredential;
+import jakarta.annotation.PreDestroy;
 import jakarta.ws.rs.HttpMethod;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.hc.core5.http.HttpStatus;
 import org.ligoj.app.resource.plugin.AbstractToolPluginResource;
-import org.ligoj.bootstrap.core.curl.CurlCacheToken;
-import org.ligoj.bootstrap.core.curl.CurlProcessor;
-import org.ligoj.bootstrap.core.curl.CurlRequest;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.ligoj.bootstrap.resource.system.configuration.ConfigurationResource;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * The goal of this class is sharing some Azure utilities among multiple plug-ins. But, for now, there is no plug-in
@@ -75,6 +93,66 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 */
 	private static final String DEFAULT_MANAGEMENT_URL = "https://management.azure.com/";
 
+	/**
+	 * Maximal concurrent Azure requests issued for a single operation.
+	 */
+	private static final String CONF_CONCURRENCY = PLUGIN_KEY + ":concurrency";
+
+	/**
+	 * Default maximal concurrent Azure requests issued for a single operation.
+	 */
+	public static final int DEFAULT_CONCURRENCY = 4;
+
+	/**
+	 * Maximal in-flight exchanges of the shared processor.
+	 */
+	private static final String CONF_IN_FLIGHT_LIMIT = PLUGIN_KEY + ":in-flight-limit";
+
+	/**
+	 * Remaining Azure quota below which the background calls are paced.
+	 */
+	private static final String CONF_RATE_LIMIT_RESERVE = PLUGIN_KEY + ":rate-limit-reserve";
+
+	/**
+	 * Rate of the paced background calls, per second.
+	 */
+	private static final String CONF_RATE_LIMIT_RATE = PLUGIN_KEY + ":rate-limit-rate";
+
+	/**
+	 * Maximal amount of retries of a throttled or a transient failed request.
+	 */
+	private static final String CONF_RETRIES = PLUGIN_KEY + ":retries";
+
+	/**
+	 * Base delay of the exponential backoff between two attempts, in milliseconds.
+	 */
+	private static final String CONF_RETRY_DELAY = PLUGIN_KEY + ":retry-delay";
+
+	/**
+	 * Total deadline of all attempts of a background request, in seconds.
+	 */
+	private static final String CONF_RETRY_DEADLINE = PLUGIN_KEY + ":retry-deadline";
+
+	/**
+	 * Total deadline of all attempts of an interactive request, in seconds.
+	 */
+	private static final String CONF_RETRY_INTERACTIVE_DEADLINE = PLUGIN_KEY + ":retry-interactive-deadline";
+
+	/**
+	 * Maximal amount of responses kept for conditional requests.
+	 */
+	private static final String CONF_RESPONSE_CACHE_SIZE = PLUGIN_KEY + ":response-cache-size";
+
+	/**
+	 * Maximal concurrent token requests per tenant.
+	 */
+	private static final String CONF_AUTH_CONCURRENCY = PLUGIN_KEY + ":auth-concurrency";
+
+	/**
+	 * Default maximal concurrent token requests per tenant.
+	 */
+	public static final int DEFAULT_AUTH_CONCURRENCY = 2;
+
 	/**
 	 * Subscription identifier. Like : "00000000-0000-0000-0000-00000000"
 	 */
@@ -113,14 +191,90 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 */
 	public static final String FIND_VM_URL = COMPUTE_URL + "?api-version={apiVersion}";
 
+	/**
+	 * REST URL of the Azure Resource Manager batch end-point.
+	 */
+	public static final String BATCH_URL = "batch?api-version=2020-06-01";
+
+	/**
+	 * Maximal amount of requests Azure Resource Manager accepts within a single batch.
+	 */
+	public static final int BATCH_SIZE = 20;
+
 	@Autowired
-	protected CurlCacheToken curlCacheToken;
+	protected AzureTokenManager tokenManager;
+
+	/**
+	 * Delay after which the configuration snapshot is reloaded, in milliseconds.
+	 */
+	private static final long SETTINGS_TTL = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Precompiled URL templates, where the key is the template.
+	 */
+	private static final Map<String, AzureUrlTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+	static {
+		precompile(COMPUTE_URL, FIND_VM_URL);
+	}
+
+	/**
+	 * Immutable snapshot of the configuration read by each request.
+	 *
+	 * @param managementUrl The management URL.
+	 * @param baseUrl       The management URL without the trailing <code>/</code>.
+	 * @param apiVersion    The API version.
+	 * @param authority     The authority token provider end-point URL.
+	 * @param retries       The authentication retries.
+	 * @param loaded        The loading date, milliseconds since epoch.
+	 */
+	protected record Settings(String managementUrl, String baseUrl, String apiVersion, String authority, int retries,
+			long loaded) {
+	}
+
+	/**
+	 * Current configuration snapshot. Lazily loaded.
+	 */
+	private volatile Settings settings;
+
+	/**
+	 * In-flight GET requests, keyed by method, URL and credentials digest.
+	 */
+	protected final AzureSingleFlight<String, String> inFlight = new AzureSingleFlight<>();
+
+	/**
+	 * Authentication contexts, where the key is the authority URL of the tenant.
+	 */
+	private final Map<String, AuthenticationContext> contexts = new ConcurrentHashMap<>();
+
+	/**
+	 * Concurrent token requests limit, where the key is the tenant.
+	 */
+	private final Map<String, Semaphore> tenantLimits = new ConcurrentHashMap<>();
+
+	/**
+	 * Executor service shared by all authentication contexts. Lazily created.
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Processor shared by all requests. Lazily created.
+	 */
+	private AzureCurlProcessor processor;
+
+	/**
+	 * Responses kept for conditional requests. Lazily created.
+	 */
+	private AzureResponseCache responseCache;
 
 	@Autowired
 	protected ConfigurationResource configuration;
 
+	@Autowired
+	protected ObjectMapper objectMapper;
+
 	/**
-	 * Authenticate using the cache API token.
+	 * Authenticate using the managed API token, refreshed in background before its expiration.
 	 *
 	 * @param tenant    The tenant UID.
 	 * @param principal The application UID.
@@ -129,9 +283,28 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 */
 	protected String authenticate(final String tenant, final String principal, final String key) {
 		// Authentication request
-		return curlCacheToken.getTokenCache(AbstractAzureToolPluginResource.class,
-				tenant + "##" + principal + "/" + key, k -> getAccessTokenFromUserCredentials(tenant, principal, key),
-				getRetries(), () -> new ValidationJsonException(PLUGIN_KEY + ":key", "azure-login"));
+		return tokenManager.getToken(getTokenKey(tenant, principal, key),
+				() -> getAccessTokenFromUserCredentials(tenant, principal, key), getRetries(),
+				() -> new ValidationJsonException(PLUGIN_KEY + ":key", "azure-login"));
+	}
+
+	/**
+	 * Return the token key of the given credentials. This key is shared with the other nodes, so the secret is never
+	 * part of it: the whole credentials are hashed.
+	 *
+	 * @param tenant    The tenant UID.
+	 * @param principal The application UID.
+	 * @param key       The token API key.
+	 * @return The SHA-256 hexadecimal digest of the credentials.
+	 */
+	protected static String getTokenKey(final String tenant, final String principal, final String key) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+					.digest((tenant + "##" + principal + "/" + key).getBytes(StandardCharsets.UTF_8)));
+		} catch (final NoSuchAlgorithmException e) {
+			// SHA-256 is available in all JVMs
+			throw new IllegalStateException(e);
+		}
 	}
 
 	@Override
@@ -141,34 +314,87 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	}
 
 	/**
-	 * Get the Azure bearer token from the authority.
+	 * Get the Azure bearer token with its expiration from the authority.
 	 */
-	private String getAccessTokenFromUserCredentials(final String tenant, final String principal, final String key) {
-		final var service = newExecutorService();
+	private AzureToken getAccessTokenFromUserCredentials(final String tenant, final String principal, final String key) {
+		// Limit the concurrent token requests of this tenant
+		final var limit = tenantLimits.computeIfAbsent(tenant, t -> new Semaphore(getAuthConcurrency()));
 		try {
-			final var context = newAuthenticationContext(tenant, service);
-			/*
-			 * Replace {client_id} with ApplicationID and {password} with password that were used to create Service
-			 * Principal above.
-			 */
-			final var credential = new ClientCredential(principal, key);
-			return context.acquireToken(getManagementUrl(), credential, null).get().getAccessToken();
-		} catch (final ExecutionException | InterruptedException | MalformedURLException e) {
+			limit.acquire();
+			try {
+				final var context = getAuthenticationContext(tenant);
+				/*
+				 * Replace {client_id} with ApplicationID and {password} with password that were used to create Service
+				 * Principal above.
+				 */
+				final var credential = new ClientCredential(principal, key);
+				final var result = context.acquireToken(getManagementUrl(), credential, null).get();
+				return new AzureToken(result.getAccessToken(), result.getExpiresOnDate().getTime());
+			} finally {
+				limit.release();
+			}
+		} catch (final InterruptedException e) {
+			// Authentication aborted
+			log.info("Azure authentication interrupted for tenant {} and principal {}", tenant, principal);
+			Thread.currentThread().interrupt();
+		} catch (final ExecutionException | MalformedURLException e) {
 			// Authentication failed
 			log.info("Azure authentication failed for tenant {} and principal {}", tenant, principal, e);
-		} finally {
-			service.shutdown();
 		}
 		return null;
 	}
 
 	/**
-	 * Create and return a new executor pool service.
+	 * Return the {@link AuthenticationContext} of the given tenant. The contexts are reused, and all of them share the
+	 * same executor service.
+	 *
+	 * @param tenant The tenant identifier.
+	 * @return The authentication context of this tenant.
+	 * @throws MalformedURLException When authority URL cannot be read.
+	 */
+	private AuthenticationContext getAuthenticationContext(final String tenant) throws MalformedURLException {
+		final var contextKey = getAuthority() + tenant;
+		final var context = contexts.get(contextKey);
+		if (context != null) {
+			return context;
+		}
+		final var newContext = newAuthenticationContext(tenant, getExecutorService());
+		return Objects.requireNonNullElse(contexts.putIfAbsent(contextKey, newContext), newContext);
+	}
+
+	/**
+	 * Return the executor service shared by all authentication contexts and the background operations.
 	 *
-	 * @return A new executor pool service.
+	 * @return The shared executor service.
+	 */
+	protected synchronized ExecutorService getExecutorService() {
+		if (executor == null) {
+			executor = newExecutorService();
+		}
+		return executor;
+	}
+
+	/**
+	 * Create and return a new executor service. Called once, the result is shared by all authentication contexts.
+	 *
+	 * @return A new executor service.
 	 */
 	protected ExecutorService newExecutorService() {
-		return Executors.newFixedThreadPool(1);
+		return Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	/**
+	 * Shutdown the shared executor service, so the pending background operations are interrupted, and close the shared
+	 * processor.
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		if (processor != null) {
+			processor.close();
+		}
 	}
 
 	/**
@@ -190,7 +416,7 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 * @return The authority token provider end-point URL.
 	 */
 	private String getAuthority() {
-		return configuration.get(CONF_AUTHORITY, DEFAULT_AUTHORITY);
+		return getSettings().authority();
 	}
 
 	/**
@@ -199,7 +425,25 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 * @return The authentication retries.
 	 */
 	protected int getRetries() {
-		return configuration.get(CONF_AUTH_RETRIES, DEFAULT_AUTH_RETRIES);
+		return getSettings().retries();
+	}
+
+	/**
+	 * Return the maximal concurrent token requests per tenant.
+	 *
+	 * @return The maximal concurrent token requests per tenant, at least 1.
+	 */
+	protected int getAuthConcurrency() {
+		return Math.max(1, configuration.get(CONF_AUTH_CONCURRENCY, DEFAULT_AUTH_CONCURRENCY));
+	}
+
+	/**
+	 * Return the maximal concurrent Azure requests issued for a single operation.
+	 *
+	 * @return The maximal concurrent Azure requests, at least 1.
+	 */
+	protected int getConcurrency() {
+		return Math.max(1, configuration.get(CONF_CONCURRENCY, DEFAULT_CONCURRENCY));
 	}
 
 	/**
@@ -208,7 +452,7 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 * @return The management URL.
 	 */
 	protected String getManagementUrl() {
-		return configuration.get(CONF_MANAGEMENT_URL, DEFAULT_MANAGEMENT_URL);
+		return getSettings().managementUrl();
 	}
 
 	/**
@@ -217,22 +461,66 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 * @return API version.
 	 */
 	protected String getApiVersion() {
-		return configuration.get(CONF_API_VERSION, DEFAULT_API_VERSION);
+		return getSettings().apiVersion();
+	}
+
+	/**
+	 * Return the configuration snapshot, reloaded when older than one minute.
+	 *
+	 * @return The configuration snapshot.
+	 */
+	protected Settings getSettings() {
+		final var current = settings;
+		final var now = System.currentTimeMillis();
+		if (current != null && now - current.loaded() < SETTINGS_TTL) {
+			return current;
+		}
+		final var managementUrl = configuration.get(CONF_MANAGEMENT_URL, DEFAULT_MANAGEMENT_URL);
+		final var loaded = new Settings(managementUrl, Strings.CS.removeEnd(managementUrl, "/"),
+				configuration.get(CONF_API_VERSION, DEFAULT_API_VERSION),
+				configuration.get(CONF_AUTHORITY, DEFAULT_AUTHORITY),
+				configuration.get(CONF_AUTH_RETRIES, DEFAULT_AUTH_RETRIES), now);
+		settings = loaded;
+		return loaded;
+	}
+
+	/**
+	 * Drop the configuration snapshot, the shared processor and the tenant limits, so the next request reads the
+	 * updated configuration. The previous processor is not closed since some requests may still be in flight, and the
+	 * pending token requests release the limit they have acquired.
+	 */
+	public synchronized void reloadConfiguration() {
+		settings = null;
+		processor = null;
+		tenantLimits.clear();
 	}
 
 	/**
-	 * Prepare an authenticated connection to Azure. The given processor would be updated with the security token.
+	 * Prepare an authenticated session to Azure. The returned session holds the security token attached to each
+	 * request.
 	 *
 	 * @param parameters The subscription parameters.
-	 * @param processor  The processor used to authenticate and execute the request.
+	 * @return The authenticated session.
 	 */
-	protected void authenticate(final Map<String, String> parameters, final AzureCurlProcessor processor) {
+	protected AzureSession authenticate(final Map<String, String> parameters) {
 		final var principal = parameters.get(PARAMETER_APP_ID);
 		final var key = StringUtils.trimToEmpty(parameters.get(PARAMETER_KEY));
 		final var tenant = StringUtils.trimToEmpty(parameters.get(PARAMETER_TENANT));
 
 		// Authentication request using cache
-		processor.setToken(authenticate(tenant, principal, key));
+		return new AzureSession(authenticate(tenant, principal, key), getTokenKey(tenant, principal, key));
+	}
+
+	/**
+	 * Return the digest identifying the credentials of a subscription, without the secret. Same value as the
+	 * credentials of the session of these parameters.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @return The SHA-256 hexadecimal digest of the credentials.
+	 */
+	protected String getCredentials(final Map<String, String> parameters) {
+		return getTokenKey(StringUtils.trimToEmpty(parameters.get(PARAMETER_TENANT)), parameters.get(PARAMETER_APP_ID),
+				StringUtils.trimToEmpty(parameters.get(PARAMETER_KEY)));
 	}
 
 	/**
@@ -261,11 +549,22 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 */
 	protected String authenticateAndExecute(final Map<String, String> parameters, final String method,
 			final String resource) {
-		final var processor = new AzureCurlProcessor();
-		authenticate(parameters, processor);
-		final var result = execute(processor, method, buildUrl(parameters, resource), "");
-		processor.close();
-		return result;
+		return execute(authenticate(parameters), method, buildUrl(parameters, resource), "");
+	}
+
+	/**
+	 * Return the lazy pages of an Azure list resource after an authentication. Only the first page is fetched within
+	 * this call, the next ones are fetched while the previous one is consumed.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @param resource   The internal resource. Appended to the base management URL. This URL may contain parameters to
+	 *                   replace. Supported parameters are : <code>{apiVersion}</code>,
+	 *                   <code>{resourceGroup}</code>,<code>{subscriptionId}</code>.
+	 * @return The lazy pages. Should be closed.
+	 */
+	protected AzurePages getAzurePages(final Map<String, String> parameters, final String resource) {
+		final var session = authenticate(parameters);
+		return new AzurePages(url -> execute(session, HttpMethod.GET, url, ""), buildUrl(parameters, resource));
 	}
 
 	/**
@@ -277,31 +576,397 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 * @return The target URL with interpolated variables.
 	 */
 	protected String buildUrl(final Map<String, String> parameters, final String resource) {
-		return Strings.CS.removeEnd(getManagementUrl(), "/") + "/" + Strings.CS.removeStart(resource, "/").replace("{apiVersion}", getApiVersion())
-				.replace("{resourceGroup}", parameters.getOrDefault(PARAMETER_RESOURCE_GROUP, "-"))
-				.replace("{subscriptionId}", parameters.getOrDefault(PARAMETER_SUBSCRIPTION, "-"));
+		return buildUrl(parameters, resource, Map.of());
+	}
+
+	/**
+	 * Build a fully qualified management URL from the target resource, the given variables and the subscription
+	 * parameters. The variables take precedence over the subscription parameters.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @param resource   Resource URL with parameters to replace.
+	 * @param variables  The variables values, where the key is the variable name without braces.
+	 * @return The target URL with interpolated variables.
+	 */
+	protected String buildUrl(final Map<String, String> parameters, final String resource,
+			final Map<String, String> variables) {
+		final var settings = getSettings();
+		final var path = Strings.CS.removeStart(resource, "/");
+		var template = TEMPLATES.get(path);
+		if (template == null) {
+			// Dynamic resource, not worth to be kept
+			template = AzureUrlTemplate.compile(path);
+		}
+		final var url = new StringBuilder(settings.baseUrl().length() + template.getLength() + 128)
+				.append(settings.baseUrl()).append('/');
+		return template.render(url, name -> {
+			final var value = variables.get(name);
+			return value == null ? resolve(parameters, name, settings) : value;
+		}).toString();
+	}
+
+	/**
+	 * Return the value of a URL variable. Supported variables are : <code>{apiVersion}</code>,
+	 * <code>{resourceGroup}</code>,<code>{subscriptionId}</code>.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @param name       The variable name, without braces.
+	 * @param settings   The configuration snapshot.
+	 * @return The variable value, or <code>null</code> when not supported.
+	 */
+	protected String resolve(final Map<String, String> parameters, final String name, final Settings settings) {
+		return switch (name) {
+			case "apiVersion" -> settings.apiVersion();
+			case "resourceGroup" -> parameters.getOrDefault(PARAMETER_RESOURCE_GROUP, "-");
+			case "subscriptionId" -> parameters.getOrDefault(PARAMETER_SUBSCRIPTION, "-");
+			default -> null;
+		};
+	}
+
+	/**
+	 * Parse and keep the given constant URL templates, so they are not parsed again by each request.
+	 *
+	 * @param resources The constant resource URLs.
+	 */
+	protected static void precompile(final String... resources) {
+		for (final var resource : resources) {
+			TEMPLATES.put(resource, AzureUrlTemplate.compile(resource));
+		}
 	}
 
 	/**
 	 * Return an Azure resource. Return <code>null</code> when the resource is not found. Authentication should be
-	 * proceeded before for authenticated query.
+	 * proceeded before for authenticated query. Concurrent identical GET requests of the same credentials share a
+	 * single HTTP exchange and the same response. Other methods are never merged.
 	 *
-	 * @param processor The processor used to query the resource.
-	 * @param method    The HTTP method.
-	 * @param url       The base URL.
-	 * @param resource  The internal resource URL appended to the base URL parameter. Duplicate '/' are handled.
+	 * @param session  The authenticated session.
+	 * @param method   The HTTP method.
+	 * @param url      The base URL.
+	 * @param resource The internal resource URL appended to the base URL parameter. Duplicate '/' are handled.
 	 * @return The requested azure resource or <code>null</code> when the resource is not found.
 	 */
-	protected String execute(final CurlProcessor processor, final String method, final String url,
+	protected String execute(final AzureSession session, final String method, final String url,
 			final String resource) {
+		final var fullUrl = Strings.CS
+				.removeEnd(Strings.CS.appendIfMissing(url, "/") + Strings.CS.removeStart(resource, "/"), "/");
+		if (HttpMethod.GET.equals(method)) {
+			// Share the in-flight request
+			return inFlight.execute(method + " " + fullUrl + " " + session.getCredentials(),
+					() -> execute(session, method, fullUrl));
+		}
+		return execute(session, method, fullUrl);
+	}
+
+	/**
+	 * Execute the request without sharing, using the shared processor.
+	 */
+	private String execute(final AzureSession session, final String method, final String url) {
+		return process(session, method, url).getResponse();
+	}
+
+	/**
+	 * Execute the request without sharing, using the shared processor, and return it with the status and the headers
+	 * of its response.
+	 *
+	 * @param session The authenticated session.
+	 * @param method  The HTTP method.
+	 * @param url     The fully qualified URL.
+	 * @return The processed request.
+	 */
+	protected AzureCurlRequest process(final AzureSession session, final String method, final String url) {
 		// Get the resource using the preempted authentication
-		final var request = new CurlRequest(method, Strings.CS
-				.removeEnd(Strings.CS.appendIfMissing(url, "/") + Strings.CS.removeStart(resource, "/"), "/"), null);
+		final var request = new AzureCurlRequest(method, url, null, session.getToken());
 		request.setSaveResponse(true);
 
 		// Execute the requests
-		processor.process(request);
-		return request.getResponse();
+		getProcessor().process(request);
+		return request;
+	}
+
+	/**
+	 * Return the processor shared by all requests, so the HTTP connections are kept alive and reused.
+	 *
+	 * @return The shared processor.
+	 */
+	protected synchronized AzureCurlProcessor getProcessor() {
+		if (processor == null) {
+			processor = new AzureCurlProcessor(
+					Math.max(1, configuration.get(CONF_IN_FLIGHT_LIMIT, AzureCurlProcessor.DEFAULT_IN_FLIGHT_LIMIT)),
+					new AzureRateLimiter(configuration.get(CONF_RATE_LIMIT_RESERVE, AzureRateLimiter.DEFAULT_RESERVE),
+							Math.max(1, configuration.get(CONF_RATE_LIMIT_RATE, AzureRateLimiter.DEFAULT_RATE))),
+					new AzureRetryPolicy(configuration.get(CONF_RETRIES, AzureRetryPolicy.DEFAULT_RETRIES),
+							configuration.get(CONF_RETRY_DELAY, AzureRetryPolicy.DEFAULT_DELAY),
+							configuration.get(CONF_RETRY_DEADLINE, AzureRetryPolicy.DEFAULT_DEADLINE),
+							configuration.get(CONF_RETRY_INTERACTIVE_DEADLINE,
+									AzureRetryPolicy.DEFAULT_INTERACTIVE_DEADLINE)));
+		}
+		return processor;
+	}
+
+	/**
+	 * Return the responses kept for conditional requests.
+	 *
+	 * @return The shared response cache.
+	 */
+	protected synchronized AzureResponseCache getResponseCache() {
+		if (responseCache == null) {
+			responseCache = new AzureResponseCache(
+					Math.max(1, configuration.get(CONF_RESPONSE_CACHE_SIZE, AzureResponseCache.DEFAULT_SIZE)));
+		}
+		return responseCache;
+	}
+
+	/**
+	 * Return a parsed Azure resource with a conditional GET request. When the resource has been previously read and
+	 * is not modified, the previously parsed content is returned without downloading and parsing it again.
+	 *
+	 * @param session The authenticated session.
+	 * @param url     The fully qualified URL.
+	 * @param type    The resource type.
+	 * @param <T>     The resource type.
+	 * @return The parsed resource or <code>null</code> when the resource is not found.
+	 */
+	protected <T> T getResource(final AzureSession session, final String url, final Class<T> type) {
+		final var cache = getResponseCache();
+		final var key = url + " " + session.getCredentials();
+		final var cached = cache.get(key);
+		final var request = new AzureCurlRequest(HttpMethod.GET, url, null, session.getToken());
+		if (cached != null) {
+			request.getHeaders().put("If-None-Match", cached.getEtag());
+		}
+		request.setSaveResponse(true);
+		getProcessor().process(request);
+		if (cached != null && request.getResponseStatus() == HttpStatus.SC_NOT_MODIFIED) {
+			// Reuse the parsed content
+			cache.hit();
+			return type.cast(cached.getValue());
+		}
+		return putResource(key, request.getResponseHeaders().get("ETag"), request.getResponse(), type);
+	}
+
+	/**
+	 * Return the parsed Azure resources. When all of them have been previously read, they are checked with concurrent
+	 * conditional requests. Otherwise, they are read with batch requests.
+	 *
+	 * @param session The authenticated session.
+	 * @param urls    The fully qualified URLs.
+	 * @param type    The resource type.
+	 * @param <T>     The resource type.
+	 * @return The parsed resources ordered as the given URLs. A <code>null</code> item means the resource is not
+	 *         found.
+	 */
+	protected <T> List<T> getResources(final AzureSession session, final List<String> urls, final Class<T> type) {
+		final var cache = getResponseCache();
+		if (urls.stream().allMatch(url -> cache.get(url + " " + session.getCredentials()) != null)) {
+			// Only check the resources are not modified
+			return executeAll(urls, url -> getResource(session, url, type));
+		}
+		final var responses = executeBatch(session, HttpMethod.GET, urls);
+		return IntStream.range(0, urls.size())
+				.mapToObj(i -> putResource(urls.get(i) + " " + session.getCredentials(), null, responses.get(i), type))
+				.toList();
+	}
+
+	/**
+	 * Parse and cache a loaded resource. Without "ETag" header, the entity tag is read from the content when
+	 * available.
+	 */
+	private <T> T putResource(final String key, final String etag, final String json, final Class<T> type) {
+		final var cache = getResponseCache();
+		if (json == null) {
+			cache.remove(key);
+			return null;
+		}
+		final var value = readValue(json, type);
+		cache.put(key, etag == null && value instanceof AzureEtagAware aware ? aware.getEtag() : etag, value);
+		return value;
+	}
+
+	/**
+	 * Parse the String and return a runtime exception when is not a correct JSON.
+	 *
+	 * @param json  The raw JSON.
+	 * @param clazz The target type.
+	 * @param <T>   The target type.
+	 * @return The parsed object.
+	 */
+	protected <T> T readValue(final String json, final Class<T> clazz) {
+		try {
+			return objectMapper.readValue(json, clazz);
+		} catch (final IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Return the counters of this plug-in.
+	 *
+	 * @return The counters where the key is the counter name.
+	 */
+	public Map<String, Long> getMetrics() {
+		final var metrics = new TreeMap<String, Long>();
+		metrics.put("request-hits", inFlight.getHits());
+		metrics.put("request-merges", inFlight.getMerges());
+		metrics.putAll(getProcessor().getMetrics());
+		metrics.putAll(getResponseCache().getMetrics());
+		return metrics;
+	}
+
+	/**
+	 * Execute the given requests concurrently using virtual threads, and return the responses in the same order than
+	 * the given URLs. The amount of in-flight requests is limited by {@link #getConcurrency()}.
+	 *
+	 * @param session The authenticated session.
+	 * @param method  The HTTP method.
+	 * @param urls    The fully qualified URLs to query.
+	 * @return The responses ordered as the given URLs. A <code>null</code> item means the resource is not found.
+	 */
+	protected List<String> executeAll(final AzureSession session, final String method, final List<String> urls) {
+		return executeAll(urls, url -> execute(session, method, url, ""));
+	}
+
+	/**
+	 * Execute the given task for each URL concurrently using virtual threads, and return the results in the same order
+	 * than the given URLs. The amount of in-flight tasks is limited by {@link #getConcurrency()}.
+	 *
+	 * @param urls The fully qualified URLs to query.
+	 * @param task The task executed for each URL.
+	 * @param <T>  The result type.
+	 * @return The results ordered as the given URLs.
+	 */
+	protected <T> List<T> executeAll(final List<String> urls, final Function<String, T> task) {
+		if (urls.size() < 2) {
+			// Nothing to parallelize
+			return urls.stream().map(task).toList();
+		}
+		final var limit = new Semaphore(getConcurrency());
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var futures = urls.stream().map(url -> {
+				// Same kind of calls as the caller
+				final var call = AzureRateLimiter.propagate(() -> task.apply(url));
+				return executor.submit(() -> {
+					limit.acquire();
+					try {
+						return call.get();
+					} finally {
+						limit.release();
+					}
+				});
+			}).toList();
+			return futures.stream().map(AbstractAzureToolPluginResource::getResult).toList();
+		}
+	}
+
+	/**
+	 * Execute the given requests with the Azure Resource Manager batch end-point, by chunks of {@value #BATCH_SIZE}
+	 * requests, and return the responses in the same order than the given URLs. A chunk the batch end-point cannot
+	 * handle is executed with {@link #executeAll(AzureSession, String, List)}. A request failing inside a batch is
+	 * executed again alone.
+	 *
+	 * @param session The authenticated session.
+	 * @param method  The HTTP method.
+	 * @param urls    The fully qualified URLs to query.
+	 * @return The responses ordered as the given URLs. A <code>null</code> item means the resource is not found.
+	 */
+	protected List<String> executeBatch(final AzureSession session, final String method, final List<String> urls) {
+		if (urls.size() < 2) {
+			// Nothing to group
+			return executeAll(session, method, urls);
+		}
+		final var responses = new ArrayList<String>(urls.size());
+		for (var start = 0; start < urls.size(); start += BATCH_SIZE) {
+			final var chunk = urls.subList(start, Math.min(urls.size(), start + BATCH_SIZE));
+			final var chunkResponses = executeBatchChunk(session, method, chunk);
+			responses.addAll(chunkResponses == null ? executeAll(session, method, chunk) : chunkResponses);
+		}
+		return responses;
+	}
+
+	/**
+	 * Execute a single batch request.
+	 *
+	 * @return The responses ordered as the given URLs, or <code>null</code> when the batch end-point failed.
+	 */
+	private List<String> executeBatchChunk(final AzureSession session, final String method, final List<String> urls) {
+		final var requests = objectMapper.createArrayNode();
+		for (var index = 0; index < urls.size(); index++) {
+			requests.addObject().put("httpMethod", method).put("name", String.valueOf(index)).put("url",
+					urls.get(index));
+		}
+		final var content = objectMapper.createObjectNode().set("requests", requests).toString();
+		final var request = new AzureCurlRequest(HttpMethod.POST,
+				getSettings().baseUrl() + "/" + BATCH_URL, content, session.getToken());
+		request.getHeaders().put("Content-Type", "application/json");
+		request.setSaveResponse(true);
+		getProcessor().process(request);
+		final var statuses = new int[urls.size()];
+		final var responses = readBatchResponses(request.getResponse(), statuses);
+		if (responses == null) {
+			return null;
+		}
+
+		// Execute again alone the failed requests
+		for (var index = 0; index < statuses.length; index++) {
+			if (statuses[index] != 404 && (statuses[index] < 200 || statuses[index] >= 300)) {
+				responses[index] = execute(session, method, urls.get(index), "");
+			}
+		}
+		return Arrays.asList(responses);
+	}
+
+	/**
+	 * Read the responses of a batch request. The response name is the index of the related request.
+	 *
+	 * @param json     The raw batch response.
+	 * @param statuses The HTTP status of each response. Completed by this method.
+	 * @return The raw content of each response. <code>null</code> when the batch response is not complete.
+	 */
+	private String[] readBatchResponses(final String json, final int[] statuses) {
+		if (json == null) {
+			return null;
+		}
+		final var responses = new String[statuses.length];
+		try {
+			final var nodes = objectMapper.readTree(json).path("responses");
+			if (nodes.size() != statuses.length) {
+				// Asynchronous or partial batch
+				return null;
+			}
+			for (final var node : nodes) {
+				final var index = NumberUtils.toInt(node.path("name").asText(), -1);
+				if (index < 0 || index >= statuses.length) {
+					return null;
+				}
+				statuses[index] = node.path("httpStatusCode").asInt();
+				final var content = node.get("content");
+				responses[index] = content == null || statuses[index] == 404 ? null : content.toString();
+			}
+		} catch (final JsonProcessingException e) {
+			log.info("Unreadable Azure batch response: {}", e.getMessage());
+			return null;
+		}
+		return responses;
+	}
+
+	/**
+	 * Wait for the result of the given task and propagate its failure as is when it is a runtime exception.
+	 *
+	 * @param future The task to wait for.
+	 * @param <T>    The result type.
+	 * @return The task result.
+	 */
+	protected static <T> T getResult(final Future<T> future) {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
 	}
 
 	/**
@@ -311,8 +976,11 @@ public abstract class AbstractAzureToolPluginResource extends AbstractToolPlugin
 	 * @param parameters The subscription parameters.
 	 */
 	protected void validateAdminAccess(final Map<String, String> parameters) {
-		if (getAzureResource(parameters, FIND_VM_URL) == null) {
-			throw new ValidationJsonException(PARAMETER_SUBSCRIPTION, "azure-admin");
+		try (var pages = getAzurePages(parameters, FIND_VM_URL)) {
+			// Only the first page is required
+			if (!pages.hasNext()) {
+				throw new ValidationJsonException(PARAMETER_SUBSCRIPTION, "azure-admin");
+			}
 		}
 	}
 
@@ -7,19 +7,104 @@
 package org.ligoj.app.plugin.vmazure;
 
 import com.hazelcast.cache.HazelcastCacheManager;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.MaxSizePolicy;
 import org.ligoj.bootstrap.resource.system.cache.CacheConfigurer;
 import org.ligoj.bootstrap.resource.system.cache.CacheManagerAware;
 import org.springframework.stereotype.Component;
 
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import java.util.concurrent.TimeUnit;
+
 /**
- * "Azure" VM types cache configuration.
+ * "Azure" VM types, resource group snapshots, VM topologies and shared tokens cache configuration.
  */
 @Component
 public class AzureCache implements CacheManagerAware {
 
+	/**
+	 * Maximal amount of cached locations sizes, all Azure subscriptions included.
+	 */
+	public static final int SIZES_MAX_ENTRIES = 5000;
+
+	/**
+	 * Expiry of the cached locations sizes, in hours.
+	 */
+	public static final int SIZES_EXPIRY = 24;
+
+	/**
+	 * Maximal amount of cached location sizes failures.
+	 */
+	public static final int SIZES_ERRORS_MAX_ENTRIES = 500;
+
+	/**
+	 * The cluster member owning the caches. <code>null</code> until the caches are created.
+	 */
+	private volatile HazelcastInstance hazelcast;
+
 	@Override
 	public void onCreate(final HazelcastCacheManager cacheManager, final CacheConfigurer configurer) {
-		cacheManager.createCache("azure-sizes", configurer.newCacheConfig("azure-sizes"));
+		hazelcast = cacheManager.getHazelcastInstance();
+
+		// VM sizes of a location, refreshed ahead by the inventory refresher before the expiry, including the ones loaded
+		// on demand
+		final var sizes = configurer.newCacheConfig("azure-sizes");
+		sizes.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.HOURS, SIZES_EXPIRY)));
+		sizes.setEvictionConfig(new EvictionConfig().setEvictionPolicy(EvictionPolicy.LRU)
+				.setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT).setSize(SIZES_MAX_ENTRIES));
+		cacheManager.createCache("azure-sizes", sizes);
+
+		// Failed VM sizes loads, kept briefly so a failing location is not requested again by each VM
+		final var sizesErrors = configurer.newCacheConfig("azure-sizes-errors");
+		sizesErrors.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(Duration.FIVE_MINUTES));
+		sizesErrors.setEvictionConfig(new EvictionConfig().setEvictionPolicy(EvictionPolicy.LRU)
+				.setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT).setSize(SIZES_ERRORS_MAX_ENTRIES));
+		cacheManager.createCache("azure-sizes-errors", sizesErrors);
+
+		// Resource group snapshot, shared by all subscriptions of the same resource group, kept up to date by the
+		// inventory refresher and evicted by the operations and the events
+		final var snapshot = configurer.newCacheConfig("azure-vm-snapshot");
+		snapshot.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(Duration.TEN_MINUTES));
+		cacheManager.createCache("azure-vm-snapshot", snapshot);
+
+		// Resource group snapshot listed on demand, when not covered by the inventory refresher
+		final var snapshotDemand = configurer.newCacheConfig("azure-vm-snapshot-demand");
+		snapshotDemand.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(Duration.ONE_MINUTE));
+		cacheManager.createCache("azure-vm-snapshot-demand", snapshotDemand);
+
+		// VM topology, rarely changing and evicted by the operations of this plug-in
+		final var topology = configurer.newCacheConfig("azure-vm-topology");
+		topology.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(Duration.ONE_HOUR));
+		cacheManager.createCache("azure-vm-topology", topology);
+
+		// Tokens shared by the nodes, keyed by the credentials digest. The AAD tokens expire within an hour, and each
+		// entry is checked against its own expiration
+		final var tokens = configurer.newCacheConfig("azure-tokens");
+		tokens.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(Duration.ONE_HOUR));
+		cacheManager.createCache("azure-tokens", tokens);
+	}
+
+	/**
+	 * Return the cluster member owning the caches.
+	 *
+	 * @return The cluster member. <code>null</code> until the caches are created.
+	 */
+	public HazelcastInstance getHazelcastInstance() {
+		return hazelcast;
+	}
+
+	/**
+	 * Indicate this node is the oldest member of the cluster, so the one running the cluster wide background tasks.
+	 * When a member leaves, the next oldest one takes over.
+	 *
+	 * @return <code>true</code> when this node is the oldest member, or when the cluster is not yet available.
+	 */
+	public boolean isLeader() {
+		final var instance = hazelcast;
+		return instance == null || instance.getCluster().getMembers().iterator().next().localMember();
 	}
 
 }
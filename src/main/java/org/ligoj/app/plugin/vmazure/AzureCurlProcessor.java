@@ -3,27 +3,161 @@
  */
 package org.ligoj.app.plugin.vmazure;
 
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.ligoj.bootstrap.core.curl.CurlProcessor;
 import org.ligoj.bootstrap.core.curl.CurlRequest;
 
-import lombok.Setter;
-
 /**
- * Azure Curl processor.
+ * Azure Curl processor. Designed to be long-lived and shared by concurrent operations, so the keep-alive connections of
+ * the underlying HTTP client are reused. The bearer token is attached per request from {@link AzureCurlRequest}, and
+ * the amount of in-flight exchanges is bounded by a limit. This limit is not the size of the connection pool of the
+ * HTTP client: the requests exceeding it wait before reaching the HTTP client. The status and the headers of the
+ * responses are kept by {@link AzureCurlResponseCallback}, and the remaining quota of each Azure subscription feeds the
+ * {@link AzureRateLimiter}. Throttled and transient failed requests are attempted again following the
+ * {@link AzureRetryPolicy}. Since the processor is shared by all tenants and credentials, the cookies are never kept.
  */
 public class AzureCurlProcessor extends CurlProcessor {
 
 	/**
-	 * Token used to authenticate request
+	 * Default maximal in-flight exchanges.
+	 */
+	public static final int DEFAULT_IN_FLIGHT_LIMIT = 20;
+
+	/**
+	 * Azure subscription identifier within a management URL.
 	 */
-	@Setter
-	protected String token;
+	private static final Pattern SUBSCRIPTION = Pattern.compile("/subscriptions/([^/?]+)");
+
+	private final int inFlightLimit;
+
+	private final AzureRateLimiter limiter;
+
+	private final AzureRetryPolicy retryPolicy;
+
+	private final Semaphore slots;
+
+	/**
+	 * Amount of processed requests.
+	 */
+	private final LongAdder requests = new LongAdder();
+
+	/**
+	 * Amount of requests that had to wait for a free slot.
+	 */
+	private final LongAdder saturations = new LongAdder();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	/**
+	 * Build a processor with the default in-flight limit.
+	 */
+	public AzureCurlProcessor() {
+		this(DEFAULT_IN_FLIGHT_LIMIT, new AzureRateLimiter(), new AzureRetryPolicy());
+	}
+
+	/**
+	 * Build a processor with the given in-flight limit.
+	 *
+	 * @param inFlightLimit The maximal in-flight exchanges.
+	 * @param limiter       The rate limiter fed by the remaining quota of each response.
+	 * @param retryPolicy   The retry policy of the throttled and the transient failed requests.
+	 */
+	public AzureCurlProcessor(final int inFlightLimit, final AzureRateLimiter limiter,
+			final AzureRetryPolicy retryPolicy) {
+		super(new AzureCurlResponseCallback());
+		this.inFlightLimit = inFlightLimit;
+		this.limiter = limiter;
+		this.retryPolicy = retryPolicy;
+		this.slots = new Semaphore(inFlightLimit);
+	}
+
+	@Override
+	protected HttpClientBuilder newClientBuilder() {
+		return super.newClientBuilder().disableCookieManagement();
+	}
 
 	@Override
 	protected boolean process(final CurlRequest request) {
+		if (!(request instanceof AzureCurlRequest azRequest)) {
+			return processInFlight(request);
+		}
+
 		// Add headers for oAuth
-		request.getHeaders().put("Authorization", "Bearer " + token);
-		return super.process(request);
+		if (azRequest.getToken() != null) {
+			request.getHeaders().put("Authorization", "Bearer " + azRequest.getToken());
+		}
+		final var matcher = SUBSCRIPTION.matcher(request.getUrl());
+		final var azSub = matcher.find() ? matcher.group(1) : null;
+		final var deadline = retryPolicy.newDeadline();
+		for (var attempt = 1;; attempt++) {
+			// Pace the background calls when the quota of this subscription is low
+			if (azSub != null) {
+				limiter.acquire(azSub, !"GET".equals(request.getMethod()));
+			}
+			azRequest.reset();
+			final var result = processInFlight(request);
+			if (azSub != null) {
+				limiter.update(azSub, azRequest.getResponseHeaders());
+			}
+			final var status = azRequest.getResponseStatus();
+			if (!retryPolicy.isRetryable(request.getMethod(), status)) {
+				return result;
+			}
+
+			// Throttled or transient failure, wait before the next attempt
+			retryPolicy.await(attempt, deadline, azRequest.getResponseHeaders().get("Retry-After"), status);
+		}
+	}
+
+	/**
+	 * Process the request within the in-flight limit.
+	 */
+	private boolean processInFlight(final CurlRequest request) {
+		acquire();
+		try {
+			return super.process(request);
+		} finally {
+			inFlight.decrementAndGet();
+			slots.release();
+		}
+	}
+
+	/**
+	 * Wait for a free slot.
+	 */
+	private void acquire() {
+		requests.increment();
+		if (!slots.tryAcquire()) {
+			// The in-flight limit is reached
+			saturations.increment();
+			slots.acquireUninterruptibly();
+		}
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
 	}
 
+	/**
+	 * Return the counters of this processor.
+	 *
+	 * @return The counters where the key is the counter name.
+	 */
+	public Map<String, Long> getMetrics() {
+		final var metrics = new TreeMap<String, Long>();
+		metrics.put("in-flight-limit", (long) inFlightLimit);
+		metrics.put("in-flight-requests", requests.sum());
+		metrics.put("in-flight-saturations", saturations.sum());
+		metrics.put("in-flight", (long) inFlight.get());
+		metrics.put("in-flight-max", (long) maxInFlight.get());
+		metrics.putAll(limiter.getMetrics());
+		metrics.putAll(retryPolicy.getMetrics());
+		return metrics;
+	}
 }
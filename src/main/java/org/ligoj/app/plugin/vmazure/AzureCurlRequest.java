@@ -0,0 +1,57 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.ligoj.bootstrap.core.curl.CurlRequest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Azure Curl request carrying its own bearer token, and keeping the status and the headers of the response.
+ */
+@Getter
+public class AzureCurlRequest extends CurlRequest {
+
+	/**
+	 * Token used to authenticate this request. May be <code>null</code> for an anonymous request.
+	 */
+	private final String token;
+
+	/**
+	 * The HTTP status of the response. <code>0</code> when there is no response.
+	 */
+	@Setter
+	private int responseStatus;
+
+	/**
+	 * The headers of the response. Names are case-insensitive.
+	 */
+	private final Map<String, String> responseHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+	/**
+	 * Build a request.
+	 *
+	 * @param method  The HTTP method.
+	 * @param url     The fully qualified URL.
+	 * @param content The optional content to send.
+	 * @param token   The token used to authenticate this request.
+	 */
+	public AzureCurlRequest(final String method, final String url, final String content, final String token) {
+		super(method, url, content);
+		this.token = token;
+	}
+
+	/**
+	 * Forget the previous response before a new attempt.
+	 */
+	void reset() {
+		responseStatus = 0;
+		responseHeaders.clear();
+		setResponse(null);
+	}
+}
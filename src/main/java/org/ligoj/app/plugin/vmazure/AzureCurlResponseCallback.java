@@ -0,0 +1,33 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.io.IOException;
+
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.ligoj.bootstrap.core.curl.CurlRequest;
+import org.ligoj.bootstrap.core.curl.DefaultHttpResponseCallback;
+
+/**
+ * Response callback keeping the status and the headers of the response within the {@link AzureCurlRequest}. A
+ * "304 - Not modified" response is accepted since it answers a conditional request.
+ */
+public class AzureCurlResponseCallback extends DefaultHttpResponseCallback {
+
+	@Override
+	public boolean onResponse(final CurlRequest request, final ClassicHttpResponse response) throws IOException {
+		if (request instanceof AzureCurlRequest azRequest) {
+			azRequest.setResponseStatus(response.getCode());
+			for (final var header : response.getHeaders()) {
+				azRequest.getResponseHeaders().put(header.getName(), header.getValue());
+			}
+			if (response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+				// The cached content of the requester is still valid
+				return true;
+			}
+		}
+		return super.onResponse(request, response);
+	}
+}
@@ -0,0 +1,18 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+/**
+ * Azure resource exposing its entity tag within its content. Used when the "ETag" header is not available, such as in
+ * a batch response.
+ */
+public interface AzureEtagAware {
+
+	/**
+	 * Return the entity tag of this resource.
+	 *
+	 * @return The entity tag. May be <code>null</code>.
+	 */
+	String getEtag();
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Azure Event Grid event, following the Event Grid schema. Only the properties related to the validation handshake
+ * and to the resource changes are read.
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AzureEvent {
+
+	/**
+	 * Event type of the validation handshake sent when the Event Grid subscription is created.
+	 */
+	public static final String VALIDATION_EVENT = "Microsoft.EventGrid.SubscriptionValidationEvent";
+
+	private String id;
+
+	/**
+	 * The event type. Like "Microsoft.Resources.ResourceActionSuccess".
+	 */
+	private String eventType;
+
+	/**
+	 * The changed resource path. Like "/subscriptions/{azSub}/resourceGroups/{group}/providers/..."
+	 */
+	private String subject;
+
+	private AzureEventData data;
+
+	/**
+	 * Azure Event Grid event data.
+	 */
+	@Getter
+	@Setter
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class AzureEventData {
+
+		/**
+		 * The code to echo during the validation handshake.
+		 */
+		private String validationCode;
+
+		/**
+		 * The operation at the origin of this event. Like "Microsoft.Compute/virtualMachines/start/action".
+		 */
+		private String operationName;
+
+		/**
+		 * The status of the operation. Like "Succeeded".
+		 */
+		private String status;
+	}
+}
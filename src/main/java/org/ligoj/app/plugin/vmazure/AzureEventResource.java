@@ -0,0 +1,49 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Azure Event Grid deliveries. Event Grid has no Ligoj credentials, so this resource is exposed on an anonymous path,
+ * outside the service URLs, and is protected only by the shared secret.
+ */
+@Path(AzureEventResource.URL)
+@Service
+@Produces(MediaType.APPLICATION_JSON)
+public class AzureEventResource {
+
+	/**
+	 * Anonymous URL of the Event Grid deliveries.
+	 */
+	public static final String URL = "/public" + VmAzurePluginResource.URL + "/events";
+
+	@Autowired
+	private VmAzurePluginResource resource;
+
+	/**
+	 * Receive the Azure Event Grid deliveries.
+	 *
+	 * @param secret The shared secret, given by the Event Grid subscription as a delivery property header.
+	 * @param events The delivered events. A missing or empty body is refused.
+	 * @return The validation response when the deliveries contain the handshake, <code>null</code> otherwise.
+	 * @see VmAzurePluginResource#receiveEvents(String, List)
+	 */
+	@POST
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Map<String, String> receiveEvents(@HeaderParam(VmAzurePluginResource.EVENT_SECRET_HEADER) final String secret,
+			final List<AzureEvent> events) {
+		return resource.receiveEvents(secret, events);
+	}
+}
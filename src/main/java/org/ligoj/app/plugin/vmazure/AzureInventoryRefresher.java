@@ -0,0 +1,508 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.ligoj.app.model.ParameterValue;
+import org.ligoj.app.plugin.vmazure.AzureVmList.AzureVmEntry;
+import org.ligoj.app.plugin.vmazure.dao.AzureParameterValueRepository;
+import org.ligoj.bootstrap.core.crypto.CryptoHelper;
+import org.ligoj.bootstrap.resource.system.configuration.ConfigurationResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background refresher of the VM states of all Azure subscriptions. The subscriptions are grouped by credentials and
+ * resource group, and each resource group is listed once with the instance view of its VMs into the shared
+ * "azure-vm-snapshot" cache. The subscription status checks then read the VM states from this cache instead of calling
+ * Azure.
+ * <p>
+ * Each resource group has its own cadence driven by its VMs: a resource group having a busy VM, or a VM whose state
+ * has just changed, is refreshed every few seconds. Otherwise, the delay doubles after each refresh up to a maximal
+ * delay. The maximal delay should stay below the expiry of the snapshot cache. An {@link AzureVmEvent} holding the new
+ * state is published for each changed VM.
+ * <p>
+ * The VM sizes of all locations are also loaded ahead with a single resource SKUs listing per Azure subscription, so
+ * the VM details never wait for a size lookup. The VM sizes loaded on demand by each node are also loaded again before
+ * their expiry.
+ * <p>
+ * Within a cluster, only the oldest member refreshes the shared caches. The VM events are relayed to the other members,
+ * so their streams get the state changes and the refresher gets the changes received by them.
+ */
+@Component
+@Slf4j
+public class AzureInventoryRefresher {
+
+	/**
+	 * First delay between two refreshes of a stable resource group, in seconds. Zero or negative value disables the
+	 * refresh.
+	 */
+	public static final String CONF_INTERVAL = AbstractAzureToolPluginResource.PLUGIN_KEY + ":inventory-interval";
+
+	/**
+	 * Default first delay between two refreshes of a stable resource group, in seconds.
+	 */
+	public static final int DEFAULT_INTERVAL = 45;
+
+	/**
+	 * When <code>false</code>, neither the refresh nor the load of the VM sizes is scheduled at startup. They can still
+	 * be called explicitly.
+	 */
+	public static final String CONF_SCHEDULED = AbstractAzureToolPluginResource.PLUGIN_KEY + ":inventory-scheduled";
+
+	/**
+	 * Delay between two refreshes of a resource group having a busy VM, in seconds.
+	 */
+	public static final String CONF_BUSY_INTERVAL = AbstractAzureToolPluginResource.PLUGIN_KEY
+			+ ":inventory-busy-interval";
+
+	/**
+	 * Default delay between two refreshes of a resource group having a busy VM, in seconds.
+	 */
+	public static final int DEFAULT_BUSY_INTERVAL = 5;
+
+	/**
+	 * Maximal delay between two refreshes of a stable resource group, in seconds.
+	 */
+	public static final String CONF_MAX_INTERVAL = AbstractAzureToolPluginResource.PLUGIN_KEY
+			+ ":inventory-max-interval";
+
+	/**
+	 * Default maximal delay between two refreshes of a stable resource group, in seconds.
+	 */
+	public static final int DEFAULT_MAX_INTERVAL = 300;
+
+	/**
+	 * Delay between two loads of the VM sizes of all locations, in seconds. Zero or negative value disables the load,
+	 * and the sizes are then loaded on demand and expire.
+	 */
+	public static final String CONF_SIZES_INTERVAL = AbstractAzureToolPluginResource.PLUGIN_KEY + ":sizes-interval";
+
+	/**
+	 * Default delay between two loads of the VM sizes of all locations, in seconds.
+	 */
+	public static final int DEFAULT_SIZES_INTERVAL = 43200;
+
+	/**
+	 * Maximal concurrent resource group listings of a refresh.
+	 */
+	public static final String CONF_CONCURRENCY = AbstractAzureToolPluginResource.PLUGIN_KEY
+			+ ":inventory-concurrency";
+
+	/**
+	 * Default maximal concurrent resource group listings of a refresh.
+	 */
+	public static final int DEFAULT_CONCURRENCY = 4;
+
+	/**
+	 * Cluster topic relaying the VM events between the members.
+	 */
+	private static final String EVENTS_TOPIC = "azure-vm-events";
+
+	@Autowired
+	protected VmAzurePluginResource resource;
+
+	@Autowired
+	private AzureParameterValueRepository parameterValueRepository;
+
+	@Autowired
+	private CryptoHelper cryptoHelper;
+
+	@Autowired
+	private AzureCache cache;
+
+	@Autowired
+	private ConfigurationResource configuration;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private AzureScheduler scheduler;
+
+	/**
+	 * Cadence of each resource group, where the key is the group key.
+	 */
+	private final Map<String, Cadence> cadences = new ConcurrentHashMap<>();
+
+	/**
+	 * The last listed resource groups, where the key is the group key.
+	 */
+	private Map<String, Map<String, String>> groups;
+
+	/**
+	 * Timestamp of the last listing of the resource groups.
+	 */
+	private long groupsTimestamp;
+
+	/**
+	 * The cluster topic relaying the VM events. Lazily joined once the cluster is available.
+	 */
+	private ITopic<AzureVmEvent> events;
+
+	/**
+	 * Timestamp of the last successful load of the VM sizes.
+	 */
+	private long sizesTimestamp;
+
+	/**
+	 * The refresh cadence of a resource group.
+	 *
+	 * @param next   The timestamp of the next refresh.
+	 * @param delay  The last delay between two refreshes, in milliseconds.
+	 * @param states The VM states of the last refresh, where the key is the VM name.
+	 */
+	private record Cadence(long next, long delay, Map<String, AzureVmState> states) {
+	}
+
+	/**
+	 * Schedule the first refresh and the first load of the VM sizes, only the enabled ones. A disabled one needs a
+	 * restart to be enabled.
+	 */
+	@PostConstruct
+	public void start() {
+		if (!configuration.get(CONF_SCHEDULED, true)) {
+			log.info("Azure inventory refresh and VM sizes load are not scheduled");
+			return;
+		}
+		if (isRefreshEnabled()) {
+			scheduler.schedule(this::run, DEFAULT_BUSY_INTERVAL, TimeUnit.SECONDS);
+		}
+		if (isSizesEnabled()) {
+			scheduler.schedule(this::runSizes, DEFAULT_BUSY_INTERVAL, TimeUnit.SECONDS);
+		}
+	}
+
+	private boolean isRefreshEnabled() {
+		return configuration.get(CONF_INTERVAL, DEFAULT_INTERVAL) > 0;
+	}
+
+	private boolean isSizesEnabled() {
+		return configuration.get(CONF_SIZES_INTERVAL, DEFAULT_SIZES_INTERVAL) > 0;
+	}
+
+	/**
+	 * Refresh the due resource groups when this node is the leader, then schedule the next check with the busy
+	 * cadence. Once disabled, the refresh is no more scheduled.
+	 */
+	private void run() {
+		if (!isRefreshEnabled()) {
+			log.info("Azure inventory refresh is disabled");
+			return;
+		}
+		var delay = DEFAULT_BUSY_INTERVAL;
+		try {
+			getEvents();
+			delay = Math.max(1, configuration.get(CONF_BUSY_INTERVAL, DEFAULT_BUSY_INTERVAL));
+			if (!cache.isLeader()) {
+				// Another member refreshes the shared caches
+				return;
+			}
+			final var start = System.currentTimeMillis();
+			final var refreshed = refresh();
+			if (refreshed > 0) {
+				log.info("Refreshed {} Azure resource groups in {}ms", refreshed, System.currentTimeMillis() - start);
+			}
+		} catch (final RuntimeException e) {
+			log.warn("Azure inventory refresh failed", e);
+		} finally {
+			scheduler.schedule(this::run, delay, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Refresh the VM states of the due resource groups of all Azure subscriptions, one listing per resource group and
+	 * credentials.
+	 *
+	 * @return The amount of refreshed resource groups.
+	 */
+	public int refresh() {
+		final var now = System.currentTimeMillis();
+		final var interval = TimeUnit.SECONDS.toMillis(configuration.get(CONF_INTERVAL, DEFAULT_INTERVAL));
+		final var all = getGroups(now, interval);
+		final var due = all.keySet().stream()
+				.filter(k -> cadences.getOrDefault(k, new Cadence(0, 0, Map.of())).next() <= now).toList();
+		final var snapshots = resource.refreshVmSnapshots(due.stream().map(all::get).toList(),
+				configuration.get(CONF_CONCURRENCY, DEFAULT_CONCURRENCY));
+
+		// Compute the next refresh of each resource group
+		final var busy = TimeUnit.SECONDS.toMillis(configuration.get(CONF_BUSY_INTERVAL, DEFAULT_BUSY_INTERVAL));
+		final var max = TimeUnit.SECONDS.toMillis(configuration.get(CONF_MAX_INTERVAL, DEFAULT_MAX_INTERVAL));
+		for (var i = 0; i < due.size(); i++) {
+			final var previous = cadences.get(due.get(i));
+			final var states = toStates(snapshots.get(i), previous);
+			final var changed = previous == null ? List.<String>of() : getChanged(previous.states(), states);
+			final var hot = states.values().stream().anyMatch(AzureVmState::isBusy) || !changed.isEmpty()
+					|| previous != null && !previous.states().keySet().equals(states.keySet());
+			publish(all.get(due.get(i)), changed, states);
+			final var delay = getDelay(previous == null ? null : previous.delay(), hot, busy, interval, max);
+
+			// A change received during the listing keeps the resource group due
+			cadences.compute(due.get(i), (k, c) -> c != null && c != previous && c.next() == 0
+					? new Cadence(0, 0, states)
+					: new Cadence(now + delay, delay, states));
+		}
+		cadences.keySet().retainAll(all.keySet());
+		return (int) snapshots.stream().filter(Objects::nonNull).count();
+	}
+
+	/**
+	 * Load the VM sizes when this node is the leader, and the ones loaded on demand by this node, then schedule the
+	 * next check. A failed load is retried at the next check. Once disabled, the load is no more scheduled.
+	 */
+	private void runSizes() {
+		if (!isSizesEnabled()) {
+			log.info("Azure VM sizes load is disabled");
+			return;
+		}
+		try {
+			if (cache.isLeader()) {
+				refreshSizesAhead();
+			}
+			refreshLoadedSizes();
+		} catch (final RuntimeException e) {
+			log.warn("Azure VM sizes load failed", e);
+		} finally {
+			scheduler.schedule(this::runSizes, DEFAULT_MAX_INTERVAL, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Load the VM sizes when the previous successful load is older than the configured interval, before the cached
+	 * ones are requested again.
+	 *
+	 * @return <code>true</code> when the VM sizes have been loaded.
+	 */
+	protected boolean refreshSizesAhead() {
+		final var interval = TimeUnit.SECONDS.toMillis(configuration.get(CONF_SIZES_INTERVAL, DEFAULT_SIZES_INTERVAL));
+		final var now = System.currentTimeMillis();
+		if (interval <= 0 || sizesTimestamp + interval > now) {
+			return false;
+		}
+		final var refreshed = refreshSizes();
+		sizesTimestamp = now;
+		log.info("Loaded the Azure VM sizes of {} locations in {}ms", refreshed, System.currentTimeMillis() - now);
+		return true;
+	}
+
+	/**
+	 * Load again the VM sizes loaded on demand by this node, once half of their expiry is elapsed.
+	 *
+	 * @return The amount of loaded locations.
+	 */
+	public int refreshLoadedSizes() {
+		final var subscriptions = new HashMap<String, Map<String, String>>();
+		getGroups(System.currentTimeMillis(),
+				TimeUnit.SECONDS.toMillis(configuration.get(CONF_INTERVAL, DEFAULT_INTERVAL))).values()
+				.forEach(p -> subscriptions.putIfAbsent(p.get(AbstractAzureToolPluginResource.PARAMETER_SUBSCRIPTION),
+						p));
+		return resource.refreshInstanceSizesAhead(subscriptions::get,
+				TimeUnit.HOURS.toMillis(AzureCache.SIZES_EXPIRY) / 2);
+	}
+
+	/**
+	 * Load the VM sizes of all locations, one resource SKUs listing per credentials and Azure subscription.
+	 *
+	 * @return The amount of refreshed locations, all Azure subscriptions included.
+	 * @throws IllegalStateException When the VM sizes of an Azure subscription cannot be loaded.
+	 */
+	public int refreshSizes() {
+		final var subscriptions = getGroups(System.currentTimeMillis(),
+				TimeUnit.SECONDS.toMillis(configuration.get(CONF_INTERVAL, DEFAULT_INTERVAL))).values().stream()
+				.collect(Collectors.toMap(
+						p -> p.get(AbstractAzureToolPluginResource.PARAMETER_TENANT) + "##"
+								+ p.get(AbstractAzureToolPluginResource.PARAMETER_APP_ID) + "/"
+								+ p.get(AbstractAzureToolPluginResource.PARAMETER_SUBSCRIPTION),
+						Function.identity(), (a, b) -> a, LinkedHashMap::new));
+		return resource.refreshInstanceSizes(List.copyOf(subscriptions.values()));
+	}
+
+	/**
+	 * Return the delay before the next refresh of a resource group.
+	 *
+	 * @param previous The previous delay, in milliseconds. <code>null</code> for a new resource group.
+	 * @param hot      When <code>true</code>, a VM is busy or its state has just changed.
+	 * @param busy     The delay while a VM is busy, in milliseconds.
+	 * @param interval The first delay of a stable resource group, in milliseconds.
+	 * @param max      The maximal delay of a stable resource group, in milliseconds.
+	 * @return The delay in milliseconds.
+	 */
+	protected static long getDelay(final Long previous, final boolean hot, final long busy, final long interval,
+			final long max) {
+		if (hot) {
+			return busy;
+		}
+		if (previous == null || previous < interval) {
+			return Math.min(interval, max);
+		}
+		return Math.min(previous * 2, max);
+	}
+
+	/**
+	 * Return the VM states of a snapshot, or the previous ones when the refresh failed.
+	 */
+	private Map<String, AzureVmState> toStates(final Map<String, AzureVmEntry> snapshot, final Cadence previous) {
+		if (snapshot == null) {
+			return previous == null ? Map.of() : previous.states();
+		}
+		return snapshot.entrySet().stream()
+				.filter(e -> e.getValue().getProperties() != null
+						&& e.getValue().getProperties().getInstanceView() != null)
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> VmAzurePluginResource
+						.toVmState(e.getValue().getProperties().getInstanceView().getStatuses())));
+	}
+
+	/**
+	 * Return the VMs whose state has changed: new VM, other status, busy or deployed flag.
+	 */
+	private List<String> getChanged(final Map<String, AzureVmState> previous, final Map<String, AzureVmState> states) {
+		return states.entrySet().stream().filter(e -> {
+			final var p = previous.get(e.getKey());
+			final var s = e.getValue();
+			return p == null || p.getStatus() != s.getStatus() || p.isBusy() != s.isBusy()
+					|| p.isDeployed() != s.isDeployed();
+		}).map(Map.Entry::getKey).toList();
+	}
+
+	/**
+	 * Publish the new state of the changed VMs of a resource group.
+	 */
+	private void publish(final Map<String, String> parameters, final List<String> changed,
+			final Map<String, AzureVmState> states) {
+		changed.forEach(vm -> {
+			final var event = new AzureVmEvent(null,
+					parameters.get(AbstractAzureToolPluginResource.PARAMETER_SUBSCRIPTION),
+					parameters.get(AbstractAzureToolPluginResource.PARAMETER_RESOURCE_GROUP), vm, null, null,
+					states.get(vm));
+			eventPublisher.publishEvent(event);
+			relay(event);
+		});
+	}
+
+	/**
+	 * Return the cluster topic relaying the VM events, and join it when the cluster is available.
+	 *
+	 * @return The cluster topic, or <code>null</code> when the cluster is not yet available.
+	 */
+	private synchronized ITopic<AzureVmEvent> getEvents() {
+		final var hazelcast = cache.getHazelcastInstance();
+		if (events == null && hazelcast != null) {
+			events = hazelcast.getTopic(EVENTS_TOPIC);
+			events.addMessageListener(this::onMessage);
+		}
+		return events;
+	}
+
+	/**
+	 * Relay a VM event to the other members.
+	 */
+	private void relay(final AzureVmEvent event) {
+		final var topic = getEvents();
+		if (topic != null) {
+			topic.publish(event);
+		}
+	}
+
+	/**
+	 * Receive a VM event relayed by another member. A new state is published to the local listeners, and a change
+	 * makes the resource group due.
+	 */
+	private void onMessage(final Message<AzureVmEvent> message) {
+		if (message.getPublishingMember() == null || message.getPublishingMember().localMember()) {
+			// Already handled by this member
+			return;
+		}
+		final var event = message.getMessageObject();
+		if (event.getState() == null) {
+			markDue(event);
+		} else {
+			eventPublisher.publishEvent(event);
+		}
+	}
+
+	/**
+	 * Return the resource groups of all Azure subscriptions. The subscriptions are listed again once per stable
+	 * interval.
+	 */
+	private synchronized Map<String, Map<String, String>> getGroups(final long now, final long interval) {
+		if (groups == null || groupsTimestamp + interval <= now) {
+			groups = getParameters().values().stream().collect(Collectors.toMap(this::getGroupKey,
+					Function.identity(), (a, b) -> a, LinkedHashMap::new));
+			groupsTimestamp = now;
+		}
+		return groups;
+	}
+
+	/**
+	 * Return the parameters of all subscriptions managing a VM with a single query. The values set at the subscription
+	 * level take precedence over the ones set at the node level.
+	 */
+	private Map<Integer, Map<String, String>> getParameters() {
+		final var parameters = new LinkedHashMap<Integer, Map<String, String>>();
+		parameterValueRepository.findAllSubscriptionParameters(VmAzurePluginResource.PARAMETER_VM).forEach(r -> {
+			final var value = (ParameterValue) r[1];
+			final var data = value.getParameter().isSecured() ? cryptoHelper.decryptAsNeeded(value.getData())
+					: value.getData();
+			final var subscription = parameters.computeIfAbsent((Integer) r[0], s -> new HashMap<>());
+			if (value.getSubscription() == null) {
+				subscription.putIfAbsent(value.getParameter().getId(), data);
+			} else {
+				subscription.put(value.getParameter().getId(), data);
+			}
+		});
+		return parameters;
+	}
+
+	/**
+	 * Return the key of the snapshot of a subscription.
+	 */
+	private String getGroupKey(final Map<String, String> parameters) {
+		return resource.getCredentials(parameters) + "/"
+				+ parameters.get(AbstractAzureToolPluginResource.PARAMETER_SUBSCRIPTION) + "/"
+				+ parameters.get(AbstractAzureToolPluginResource.PARAMETER_RESOURCE_GROUP);
+	}
+
+	/**
+	 * Refresh the resource group of a changed VM at the next check: the user is likely waiting for this VM.
+	 *
+	 * @param event The VM change event.
+	 */
+	@EventListener
+	public void onVmEvent(final AzureVmEvent event) {
+		if (event.getState() != null) {
+			// Event published by a refresher, the state is already known
+			return;
+		}
+		markDue(event);
+
+		// The leader may be another member
+		relay(event);
+	}
+
+	/**
+	 * Make the resource group of the given event due.
+	 */
+	private void markDue(final AzureVmEvent event) {
+		final var suffix = ("/" + event.getAzSub() + "/" + event.getGroup()).toLowerCase(Locale.ROOT);
+		cadences.replaceAll((k, c) -> k.toLowerCase(Locale.ROOT).endsWith(suffix) ? new Cadence(0, 0, c.states()) : c);
+	}
+}
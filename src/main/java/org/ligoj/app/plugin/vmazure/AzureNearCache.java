@@ -0,0 +1,128 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Node local cache in front of a cluster cache: the values are kept deserialized for a short time, so the repeated
+ * reads do not reach the cluster cache. The updated entries are invalidated by the owner of this cache, on all nodes.
+ * When the maximal size is reached, the least recently used entry is dropped.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class AzureNearCache<K, V> {
+
+	/**
+	 * Default time to live of an entry, in seconds.
+	 */
+	public static final int DEFAULT_TTL = 300;
+
+	private record Entry<V>(V value, long expire) {
+	}
+
+	private final String name;
+
+	private final long ttl;
+
+	private final int size;
+
+	/**
+	 * Entries in access order, so the eldest entry is the least recently used one.
+	 */
+	private final Map<K, Entry<V>> entries;
+
+	/**
+	 * Amount of values read from this cache.
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Amount of values read from the loader.
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Build a near cache.
+	 *
+	 * @param name The cache name, used as prefix of the metrics.
+	 * @param ttl  The time to live of an entry, in seconds.
+	 * @param size The maximal amount of entries.
+	 */
+	public AzureNearCache(final String name, final int ttl, final int size) {
+		this.name = name;
+		this.ttl = TimeUnit.SECONDS.toMillis(ttl);
+		this.size = size;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+				return size() > AzureNearCache.this.size;
+			}
+		};
+	}
+
+	/**
+	 * Return the local value, or the one of the loader when missing or expired.
+	 *
+	 * @param key    The entry key.
+	 * @param loader The loader reading the cluster cache. A failure is not cached locally.
+	 * @return The value.
+	 */
+	public V get(final K key, final Supplier<V> loader) {
+		final var now = System.currentTimeMillis();
+		final Entry<V> entry;
+		synchronized (this) {
+			entry = entries.get(key);
+		}
+		if (entry != null && entry.expire() > now) {
+			hits.increment();
+			return entry.value();
+		}
+
+		// The loader is called outside the lock, the concurrent loads of the same key are shared by the loader
+		misses.increment();
+		final var value = loader.get();
+		synchronized (this) {
+			entries.put(key, new Entry<>(value, now + ttl));
+		}
+		return value;
+	}
+
+	/**
+	 * Invalidate the local entry.
+	 *
+	 * @param key The entry key.
+	 */
+	public synchronized void remove(final K key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Invalidate all local entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Return the counters of this cache.
+	 *
+	 * @return The counters where the key is the counter name.
+	 */
+	public Map<String, Long> getMetrics() {
+		final var metrics = new TreeMap<String, Long>();
+		synchronized (this) {
+			metrics.put(name + "-near-size", (long) entries.size());
+		}
+		metrics.put(name + "-near-hits", hits.sum());
+		metrics.put(name + "-near-misses", misses.sum());
+		return metrics;
+	}
+}
@@ -16,7 +16,9 @@ import lombok.Setter;
 @Getter
 @Setter
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class AzureNic {
+public class AzureNic implements AzureEtagAware {
+
+	private String etag;
 
 	private AzureNicProperties properties;
 
@@ -0,0 +1,203 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.ligoj.bootstrap.resource.system.configuration.ConfigurationResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Azure long-running operation tracker. The operation is polled with its "Azure-AsyncOperation" or "Location" URL, at
+ * the rate given by the "Retry-After" header, until it is completed or the timeout is reached.
+ *
+ * @see <a href="https://learn.microsoft.com/en-us/azure/azure-resource-manager/management/async-operations">Async
+ *      operations</a>
+ */
+@Component
+@Slf4j
+public class AzureOperationTracker {
+
+	/**
+	 * Delay between two polls when Azure does not give one, in seconds.
+	 */
+	public static final String CONF_POLL_DELAY = AbstractAzureToolPluginResource.PLUGIN_KEY + ":operation-poll-delay";
+
+	/**
+	 * Default delay between two polls when Azure does not give one, in seconds.
+	 */
+	public static final int DEFAULT_POLL_DELAY = 5;
+
+	/**
+	 * Maximal duration of a tracked operation, in seconds.
+	 */
+	public static final String CONF_TIMEOUT = AbstractAzureToolPluginResource.PLUGIN_KEY + ":operation-timeout";
+
+	/**
+	 * Default maximal duration of a tracked operation, in seconds.
+	 */
+	public static final int DEFAULT_TIMEOUT = 600;
+
+	/**
+	 * Completed operation status.
+	 */
+	public static final String SUCCEEDED = "Succeeded";
+
+	/**
+	 * Failed operation status.
+	 */
+	public static final String FAILED = "Failed";
+
+	/**
+	 * Canceled operation status.
+	 */
+	public static final String CANCELED = "Canceled";
+
+	/**
+	 * Operation not completed before the timeout.
+	 */
+	public static final String TIMED_OUT = "TimedOut";
+
+	@Autowired
+	protected ConfigurationResource configuration;
+
+	@Autowired
+	protected ObjectMapper objectMapper;
+
+	@Autowired
+	protected AzureScheduler scheduler;
+
+	/**
+	 * Track the operation started by the given request.
+	 *
+	 * @param request The processed request that started the operation.
+	 * @param poller  The GET request executor: from a fully qualified URL to the processed request. Called for each
+	 *                poll, so it should get the current token from the token manager rather than capture the token
+	 *                of the operation request.
+	 * @return The future completed with the final status: {@value #SUCCEEDED}, {@value #FAILED}, {@value #CANCELED}
+	 *         or {@value #TIMED_OUT}.
+	 */
+	public CompletableFuture<String> track(final AzureCurlRequest request,
+			final Function<String, AzureCurlRequest> poller) {
+		final var result = new CompletableFuture<String>();
+		final var headers = request.getResponseHeaders();
+		final var asyncUrl = headers.get("Azure-AsyncOperation");
+		final var url = asyncUrl == null ? headers.get("Location") : asyncUrl;
+		if (url == null) {
+			// Synchronous operation
+			result.complete(isSuccess(request.getResponseStatus()) ? SUCCEEDED : FAILED);
+			return result;
+		}
+		final var defaultDelay = configuration.get(CONF_POLL_DELAY, DEFAULT_POLL_DELAY);
+		final var deadline = System.currentTimeMillis()
+				+ TimeUnit.SECONDS.toMillis(configuration.get(CONF_TIMEOUT, DEFAULT_TIMEOUT));
+		final var operation = new Operation(url, asyncUrl != null, poller, defaultDelay, deadline, result);
+		schedule(operation, getDelay(request, defaultDelay));
+		return result;
+	}
+
+	/**
+	 * A tracked operation.
+	 *
+	 * @param url          The polled URL.
+	 * @param async        When <code>true</code>, the URL is an "Azure-AsyncOperation" one returning the status.
+	 *                     Otherwise, the URL is a "Location" one returning "202 - Accepted" while in progress.
+	 * @param poller       The GET request executor.
+	 * @param defaultDelay The delay between two polls when Azure does not give one, in seconds.
+	 * @param deadline     The timestamp from which the operation is no more polled.
+	 * @param result       The future completed with the final status.
+	 */
+	private record Operation(String url, boolean async, Function<String, AzureCurlRequest> poller, int defaultDelay,
+			long deadline, CompletableFuture<String> result) {
+	}
+
+	private void schedule(final Operation operation, final int delay) {
+		scheduler.schedule(() -> poll(operation), delay, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Poll the operation and schedule the next poll when it is not completed.
+	 */
+	private void poll(final Operation operation) {
+		if (operation.result.isDone()) {
+			// Canceled by the caller
+			return;
+		}
+		var delay = operation.defaultDelay;
+		try {
+			final var response = operation.poller.apply(operation.url);
+			final var status = getStatus(operation, response);
+			if (status != null) {
+				operation.result.complete(status);
+				return;
+			}
+			delay = getDelay(response, operation.defaultDelay);
+		} catch (final RuntimeException e) {
+			// Transient failure, the operation is polled again
+			log.info("Azure operation poll failed for {}: {}", operation.url, e.getMessage());
+		}
+		if (System.currentTimeMillis() >= operation.deadline) {
+			log.info("Azure operation {} is not completed before the timeout", operation.url);
+			operation.result.complete(TIMED_OUT);
+		} else {
+			schedule(operation, delay);
+		}
+	}
+
+	/**
+	 * Return the final status from the poll response, or <code>null</code> when the operation is in progress or the
+	 * status cannot be read.
+	 */
+	private String getStatus(final Operation operation, final AzureCurlRequest response) {
+		final var code = response.getResponseStatus();
+		if (!operation.async) {
+			// "Location" polling: "202 - Accepted" until completion
+			if (code == HttpStatus.SC_ACCEPTED || isTransient(code)) {
+				return null;
+			}
+			return isSuccess(code) ? SUCCEEDED : FAILED;
+		}
+		if (!isSuccess(code) || response.getResponse() == null) {
+			return isTransient(code) ? null : FAILED;
+		}
+		try {
+			final var status = objectMapper.readTree(response.getResponse()).path("status").asText();
+			return Stream.of(SUCCEEDED, FAILED, CANCELED).filter(status::equalsIgnoreCase).findFirst().orElse(null);
+		} catch (final JsonProcessingException e) {
+			log.info("Unreadable Azure operation status for {}: {}", operation.url, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Indicates the status may change with a new attempt: no response, throttling or server error.
+	 */
+	private static boolean isTransient(final int status) {
+		return status == 0 || status == HttpStatus.SC_TOO_MANY_REQUESTS
+				|| status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+	}
+
+	private static boolean isSuccess(final int status) {
+		return status >= HttpStatus.SC_OK && status < HttpStatus.SC_MULTIPLE_CHOICES;
+	}
+
+	/**
+	 * Return the delay before the next poll from the "Retry-After" header, in seconds.
+	 */
+	private static int getDelay(final AzureCurlRequest response, final int defaultDelay) {
+		final var wait = AzureRetryPolicy.getRetryAfter(response.getResponseHeaders().get("Retry-After"),
+				System.currentTimeMillis());
+		return wait < 0 ? defaultDelay : (int) Math.min(Integer.MAX_VALUE, (wait + 999) / 1000);
+	}
+}
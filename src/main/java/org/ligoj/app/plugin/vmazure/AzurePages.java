@@ -0,0 +1,200 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lazy iterator over the raw JSON pages of an Azure list, following the <code>nextLink</code> URLs. The next page is
+ * prefetched while the current one is processed, with the same background flag as the consumer. The iteration ends
+ * with the last page, or with the first page that cannot be fetched, including when the retries of this page are
+ * exhausted. In the latter case, or when a
+ * <code>nextLink</code> targets another origin than the first page, the listing is marked as truncated.
+ */
+@Slf4j
+public class AzurePages implements Iterator<String>, AutoCloseable {
+
+	private static final JsonFactory FACTORY = new JsonFactory();
+
+	/**
+	 * Page fetcher: from a fully qualified URL to the raw JSON, or <code>null</code> when the page cannot be fetched.
+	 */
+	private final UnaryOperator<String> fetcher;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	/**
+	 * The scheme, host and port of the first page. The bearer token is never sent to another origin.
+	 */
+	private final String origin;
+
+	/**
+	 * When <code>true</code>, a page after the first one cannot be fetched or is not followed.
+	 */
+	private boolean truncated;
+
+	/**
+	 * When <code>true</code>, the first page has been fetched.
+	 */
+	private boolean started;
+
+	/**
+	 * The pending page. <code>null</code> when there is no more page.
+	 */
+	private Future<String> next;
+
+	/**
+	 * Build the pages iterator and fetch the first page within the calling thread.
+	 *
+	 * @param fetcher The page fetcher: from a fully qualified URL to the raw JSON, or <code>null</code> when the page
+	 *                cannot be fetched.
+	 * @param url     The fully qualified URL of the first page.
+	 */
+	public AzurePages(final UnaryOperator<String> fetcher, final String url) {
+		this.fetcher = u -> fetch(fetcher, u);
+		this.origin = getOrigin(url);
+		this.next = CompletableFuture.completedFuture(this.fetcher.apply(url));
+	}
+
+	/**
+	 * Fetch a page and keep the listing degradable: a failed page, such as an unavailable service, ends the iteration
+	 * instead of failing the whole listing.
+	 */
+	private static String fetch(final UnaryOperator<String> fetcher, final String url) {
+		try {
+			return fetcher.apply(url);
+		} catch (final RuntimeException e) {
+			log.warn("Azure page {} cannot be fetched: {}", url, e.getMessage());
+			return null;
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			return false;
+		}
+		if (AbstractAzureToolPluginResource.getResult(next) == null) {
+			// Not fetched page, the listing is truncated unless this is the first page
+			truncated = started;
+			next = null;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final var page = AbstractAzureToolPluginResource.getResult(next);
+		started = true;
+
+		// Prefetch the next page within the same kind of calls
+		final var nextLink = getNextLink(page);
+		if (nextLink == null) {
+			next = null;
+		} else if (origin.equals(getOrigin(nextLink))) {
+			final var fetch = AzureRateLimiter.propagate(() -> fetcher.apply(nextLink));
+			next = executor.submit(fetch::get);
+		} else {
+			log.warn("Azure next link {} is not followed, another origin than {}", nextLink, origin);
+			truncated = true;
+			next = null;
+		}
+		return page;
+	}
+
+	/**
+	 * Indicate a page after the first one cannot be fetched or is not followed. Only relevant once the iteration is
+	 * completed.
+	 *
+	 * @return <code>true</code> when the listing is incomplete.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Return the scheme, host and port of the given URL, lower case.
+	 */
+	private static String getOrigin(final String url) {
+		try {
+			final var uri = URI.create(url);
+			final var scheme = StringUtils.lowerCase(uri.getScheme(), Locale.ROOT);
+			final var port = uri.getPort() == -1 ? ("http".equals(scheme) ? 80 : 443) : uri.getPort();
+			return scheme + "://" + StringUtils.lowerCase(uri.getHost(), Locale.ROOT) + ":" + port;
+		} catch (final IllegalArgumentException e) {
+			// Invalid URL, never matched
+			return "";
+		}
+	}
+
+	/**
+	 * Return the pages as a sequential stream. Closing the stream closes this iterator.
+	 *
+	 * @return The pages stream.
+	 */
+	public Stream<String> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+				.onClose(this::close);
+	}
+
+	/**
+	 * Return the <code>nextLink</code> of the given page without binding it.
+	 *
+	 * @param page The raw JSON page.
+	 * @return The <code>nextLink</code> value or <code>null</code>.
+	 */
+	protected static String getNextLink(final String page) {
+		try (var parser = FACTORY.createParser(page)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final var field = parser.currentName();
+				parser.nextToken();
+				if ("nextLink".equals(field)) {
+					return parser.getValueAsString();
+				}
+				parser.skipChildren();
+			}
+			return null;
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (next != null) {
+			// Cancel the prefetched page, if any
+			next.cancel(true);
+			next = null;
+		}
+		executor.shutdownNow();
+	}
+}
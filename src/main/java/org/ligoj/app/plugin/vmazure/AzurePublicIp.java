@@ -14,7 +14,9 @@ import lombok.Setter;
 @Getter
 @Setter
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class AzurePublicIp {
+public class AzurePublicIp implements AzureEtagAware {
+
+	private String etag;
 
 	private AzurePipProperties properties;
 
@@ -0,0 +1,219 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Adaptive rate limiter driven by the remaining quota Azure returns with each response, per Azure subscription. While
+ * the remaining quota is above the reserve, nothing is limited. Below the reserve, the background calls are paced by a
+ * token bucket, so the reserve is left to the interactive calls that are never limited.
+ *
+ * @see <a href=
+ *      "https://learn.microsoft.com/en-us/azure/azure-resource-manager/management/request-limits-and-throttling">Throttling</a>
+ */
+public class AzureRateLimiter {
+
+	/**
+	 * Default remaining quota below which the background calls are paced.
+	 */
+	public static final int DEFAULT_RESERVE = 100;
+
+	/**
+	 * Default rate of the paced background calls, per second.
+	 */
+	public static final int DEFAULT_RATE = 5;
+
+	/**
+	 * Remaining reads header.
+	 */
+	public static final String HEADER_REMAINING_READS = "x-ms-ratelimit-remaining-subscription-reads";
+
+	/**
+	 * Remaining writes header.
+	 */
+	public static final String HEADER_REMAINING_WRITES = "x-ms-ratelimit-remaining-subscription-writes";
+
+	/**
+	 * When <code>true</code>, the calls of the current thread are background ones.
+	 */
+	private static final ThreadLocal<Boolean> BACKGROUND = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	private final int reserve;
+
+	private final double rate;
+
+	/**
+	 * Buckets where the key is the Azure subscription and the kind of calls.
+	 */
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	/**
+	 * Amount of paced calls.
+	 */
+	private final LongAdder waits = new LongAdder();
+
+	/**
+	 * Total waiting time of the paced calls, in milliseconds.
+	 */
+	private final LongAdder waitTime = new LongAdder();
+
+	/**
+	 * The observed remaining quota and the token bucket of a kind of calls.
+	 */
+	private static class Bucket {
+
+		/**
+		 * The last remaining quota returned by Azure. <code>-1</code> when unknown.
+		 */
+		private volatile int remaining = -1;
+
+		/**
+		 * Available tokens, negative when some calls are waiting.
+		 */
+		private double tokens = 1;
+
+		private long last = System.nanoTime();
+
+		/**
+		 * Take a token and return the time to wait for it.
+		 *
+		 * @param rate The refill rate per second.
+		 * @return The time to wait, in milliseconds.
+		 */
+		private synchronized long take(final double rate) {
+			final var now = System.nanoTime();
+			tokens = Math.min(1, tokens + (now - last) * rate / TimeUnit.SECONDS.toNanos(1));
+			last = now;
+			tokens--;
+			return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * 1000 / rate);
+		}
+	}
+
+	/**
+	 * Build a rate limiter with the default reserve and rate.
+	 */
+	public AzureRateLimiter() {
+		this(DEFAULT_RESERVE, DEFAULT_RATE);
+	}
+
+	/**
+	 * Build a rate limiter.
+	 *
+	 * @param reserve The remaining quota below which the background calls are paced.
+	 * @param rate    The rate of the paced background calls, per second.
+	 */
+	public AzureRateLimiter(final int reserve, final double rate) {
+		this.reserve = reserve;
+		this.rate = rate;
+	}
+
+	/**
+	 * Execute the given task as a background one: its calls are paced when the quota is low.
+	 *
+	 * @param task The task to execute.
+	 * @param <T>  The result type.
+	 * @return The task result.
+	 */
+	public static <T> T background(final Supplier<T> task) {
+		final var previous = BACKGROUND.get();
+		BACKGROUND.set(Boolean.TRUE);
+		try {
+			return task.get();
+		} finally {
+			BACKGROUND.set(previous);
+		}
+	}
+
+	/**
+	 * Indicate the calls of the current thread are background ones.
+	 *
+	 * @return <code>true</code> within {@link #background(Supplier)}.
+	 */
+	public static boolean isBackground() {
+		return BACKGROUND.get();
+	}
+
+	/**
+	 * Return the given task bound to the kind of calls of the current thread, so the calls made by another thread on
+	 * behalf of this one are paced the same way.
+	 *
+	 * @param task The task to execute in another thread.
+	 * @param <T>  The result type.
+	 * @return The task to submit.
+	 */
+	public static <T> Supplier<T> propagate(final Supplier<T> task) {
+		return isBackground() ? () -> background(task) : task;
+	}
+
+	private Bucket getBucket(final String azSub, final boolean write) {
+		return buckets.computeIfAbsent(azSub + (write ? "/writes" : "/reads"), k -> new Bucket());
+	}
+
+	/**
+	 * Wait for the permission to call Azure. Only the background calls may wait.
+	 *
+	 * @param azSub The Azure subscription identifier.
+	 * @param write When <code>true</code>, the call consumes the write quota.
+	 */
+	public void acquire(final String azSub, final boolean write) {
+		if (!BACKGROUND.get()) {
+			// Interactive calls have the priority
+			return;
+		}
+		final var bucket = getBucket(azSub, write);
+		final var remaining = bucket.remaining;
+		if (remaining < 0 || remaining > reserve) {
+			// Enough quota
+			return;
+		}
+		final var wait = bucket.take(rate);
+		if (wait > 0) {
+			waits.increment();
+			waitTime.add(wait);
+			try {
+				Thread.sleep(wait);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Record the remaining quota returned by Azure.
+	 *
+	 * @param azSub   The Azure subscription identifier.
+	 * @param headers The response headers.
+	 */
+	public void update(final String azSub, final Map<String, String> headers) {
+		update(azSub, false, headers.get(HEADER_REMAINING_READS));
+		update(azSub, true, headers.get(HEADER_REMAINING_WRITES));
+	}
+
+	private void update(final String azSub, final boolean write, final String value) {
+		final var remaining = NumberUtils.toInt(value, -1);
+		if (remaining >= 0) {
+			getBucket(azSub, write).remaining = remaining;
+		}
+	}
+
+	/**
+	 * Return the counters of this limiter.
+	 *
+	 * @return The counters where the key is the counter name.
+	 */
+	public Map<String, Long> getMetrics() {
+		final var metrics = new TreeMap<String, Long>();
+		metrics.put("rate-limit-waits", waits.sum());
+		metrics.put("rate-limit-wait-ms", waitTime.sum());
+		return metrics;
+	}
+}
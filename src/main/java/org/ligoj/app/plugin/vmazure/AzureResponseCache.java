@@ -0,0 +1,128 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Bounded response cache keeping the entity tag and the parsed content of a resource, so a conditional request can
+ * reuse the parsed content when the resource is not modified. The least recently used entries are evicted first.
+ */
+public class AzureResponseCache {
+
+	/**
+	 * Default maximal amount of cached responses.
+	 */
+	public static final int DEFAULT_SIZE = 1000;
+
+	/**
+	 * A cached response.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class Entry {
+
+		/**
+		 * The entity tag of the resource.
+		 */
+		private final String etag;
+
+		/**
+		 * The parsed content of the resource.
+		 */
+		private final Object value;
+	}
+
+	private final int size;
+
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Amount of not modified responses, so reused parsed contents.
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Amount of parsed contents.
+	 */
+	private final LongAdder loads = new LongAdder();
+
+	/**
+	 * Build a cache with the given maximal size.
+	 *
+	 * @param size The maximal amount of cached responses.
+	 */
+	public AzureResponseCache(final int size) {
+		this.size = size;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+				return size() > AzureResponseCache.this.size;
+			}
+		};
+	}
+
+	/**
+	 * Return the cached response.
+	 *
+	 * @param key The response key.
+	 * @return The cached response or <code>null</code>.
+	 */
+	public synchronized Entry get(final String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Save a loaded response. Without entity tag, the previous response is removed.
+	 *
+	 * @param key   The response key.
+	 * @param etag  The entity tag of the resource. May be <code>null</code>.
+	 * @param value The parsed content.
+	 */
+	public synchronized void put(final String key, final String etag, final Object value) {
+		loads.increment();
+		if (etag == null) {
+			entries.remove(key);
+		} else {
+			entries.put(key, new Entry(etag, value));
+		}
+	}
+
+	/**
+	 * Remove a cached response.
+	 *
+	 * @param key The response key.
+	 */
+	public synchronized void remove(final String key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Record a not modified response.
+	 */
+	public void hit() {
+		hits.increment();
+	}
+
+	/**
+	 * Return the counters of this cache.
+	 *
+	 * @return The counters where the key is the counter name.
+	 */
+	public Map<String, Long> getMetrics() {
+		final var metrics = new TreeMap<String, Long>();
+		synchronized (this) {
+			metrics.put("response-cache-size", (long) entries.size());
+		}
+		metrics.put("response-cache-hits", hits.sum());
+		metrics.put("response-cache-loads", loads.sum());
+		return metrics;
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.hc.core5.http.HttpStatus;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+
+/**
+ * Retry policy of the throttled and the transient failed Azure requests. Only the idempotent requests are attempted
+ * again. The "Retry-After" delay is honored when given, otherwise the delay grows exponentially. A random jitter is
+ * added to spread the attempts of concurrent requests, and all attempts of a request must fit in a total deadline. This
+ * deadline is shorter for the interactive requests, since a user is waiting for them.
+ */
+public class AzureRetryPolicy {
+
+	/**
+	 * Default maximal amount of retries of a request.
+	 */
+	public static final int DEFAULT_RETRIES = 3;
+
+	/**
+	 * Default base delay of the exponential backoff, in milliseconds.
+	 */
+	public static final int DEFAULT_DELAY = 500;
+
+	/**
+	 * Default total deadline of all attempts of a background request, in seconds.
+	 */
+	public static final int DEFAULT_DEADLINE = 60;
+
+	/**
+	 * Default total deadline of all attempts of an interactive request, in seconds.
+	 */
+	public static final int DEFAULT_INTERACTIVE_DEADLINE = 5;
+
+	/**
+	 * The idempotent HTTP methods: a new attempt has the same effect as a single one.
+	 */
+	private static final Set<String> IDEMPOTENT = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+
+	/**
+	 * Maximal delay of the exponential backoff, in milliseconds.
+	 */
+	private static final long MAX_DELAY = 30_000L;
+
+	private final int retries;
+
+	private final long delay;
+
+	private final long deadline;
+
+	private final long interactiveDeadline;
+
+	/**
+	 * Amount of retried requests attempts.
+	 */
+	private final LongAdder retried = new LongAdder();
+
+	/**
+	 * Amount of requests failed after all attempts.
+	 */
+	private final LongAdder exhausted = new LongAdder();
+
+	/**
+	 * Build a retry policy with the default values.
+	 */
+	public AzureRetryPolicy() {
+		this(DEFAULT_RETRIES, DEFAULT_DELAY, DEFAULT_DEADLINE);
+	}
+
+	/**
+	 * Build a retry policy with the default interactive deadline.
+	 *
+	 * @param retries  The maximal amount of retries of a request.
+	 * @param delay    The base delay of the exponential backoff, in milliseconds.
+	 * @param deadline The total deadline of all attempts of a background request, in seconds.
+	 */
+	public AzureRetryPolicy(final int retries, final long delay, final int deadline) {
+		this(retries, delay, deadline, DEFAULT_INTERACTIVE_DEADLINE);
+	}
+
+	/**
+	 * Build a retry policy.
+	 *
+	 * @param retries             The maximal amount of retries of a request.
+	 * @param delay               The base delay of the exponential backoff, in milliseconds.
+	 * @param deadline            The total deadline of all attempts of a background request, in seconds.
+	 * @param interactiveDeadline The total deadline of all attempts of an interactive request, in seconds.
+	 */
+	public AzureRetryPolicy(final int retries, final long delay, final int deadline, final int interactiveDeadline) {
+		this.retries = retries;
+		this.delay = Math.max(1, delay);
+		this.deadline = TimeUnit.SECONDS.toMillis(deadline);
+		this.interactiveDeadline = TimeUnit.SECONDS.toMillis(interactiveDeadline);
+	}
+
+	/**
+	 * Return the deadline of a new request, depending on the kind of the calling thread.
+	 *
+	 * @return The timestamp after which no attempt is started.
+	 * @see AzureRateLimiter#isBackground()
+	 */
+	public long newDeadline() {
+		return System.currentTimeMillis() + (AzureRateLimiter.isBackground() ? deadline : interactiveDeadline);
+	}
+
+	/**
+	 * Indicates the request can be attempted again: an idempotent request throttled, unavailable or failed with a
+	 * server error. A non idempotent request, such as a VM power operation, is never attempted again since the first
+	 * attempt may have been processed.
+	 *
+	 * @param method The HTTP method.
+	 * @param status The response status.
+	 * @return <code>true</code> when the request can be attempted again.
+	 */
+	public boolean isRetryable(final String method, final int status) {
+		return IDEMPOTENT.contains(method)
+				&& (status == HttpStatus.SC_TOO_MANY_REQUESTS || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR);
+	}
+
+	/**
+	 * Wait before the next attempt, or fail when all attempts are consumed.
+	 *
+	 * @param attempt    The amount of already done attempts, starting from 1.
+	 * @param deadline   The timestamp after which no attempt is started.
+	 * @param retryAfter The "Retry-After" header value, in seconds or as an HTTP date. May be <code>null</code>.
+	 * @param status     The last response status.
+	 */
+	public void await(final int attempt, final long deadline, final String retryAfter, final int status) {
+		final var wait = getDelay(attempt, retryAfter);
+		if (attempt > retries || System.currentTimeMillis() + wait > deadline) {
+			exhausted.increment();
+			throw new BusinessException("azure-unavailable", status);
+		}
+		retried.increment();
+		try {
+			Thread.sleep(wait);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException("azure-unavailable", status);
+		}
+	}
+
+	/**
+	 * Return the delay before the next attempt: the "Retry-After" one when given, or the exponential backoff, with a
+	 * jitter.
+	 *
+	 * @param attempt    The amount of already done attempts, starting from 1.
+	 * @param retryAfter The "Retry-After" header value, in seconds or as an HTTP date. May be <code>null</code>.
+	 * @return The delay in milliseconds.
+	 */
+	protected long getDelay(final int attempt, final String retryAfter) {
+		final var wait = getRetryAfter(retryAfter, System.currentTimeMillis());
+		if (wait >= 0) {
+			return wait + ThreadLocalRandom.current().nextLong(delay + 1);
+		}
+		final var backoff = Math.min(MAX_DELAY, delay << Math.min(attempt - 1, 16));
+		return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+	}
+
+	/**
+	 * Return the delay given by a "Retry-After" header: an amount of seconds, or an HTTP date.
+	 *
+	 * @param retryAfter The "Retry-After" header value. May be <code>null</code>.
+	 * @param now        The current date, milliseconds since epoch.
+	 * @return The delay in milliseconds, zero for a past date, or <code>-1</code> when the value is missing or
+	 *         invalid.
+	 */
+	public static long getRetryAfter(final String retryAfter, final long now) {
+		if (retryAfter == null) {
+			return -1;
+		}
+		final var seconds = NumberUtils.toLong(retryAfter.trim(), -1);
+		if (seconds >= 0) {
+			return TimeUnit.SECONDS.toMillis(seconds);
+		}
+		try {
+			final var date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, date.toInstant().toEpochMilli() - now);
+		} catch (final DateTimeParseException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Return the counters of this policy.
+	 *
+	 * @return The counters where the key is the counter name.
+	 */
+	public Map<String, Long> getMetrics() {
+		final var metrics = new TreeMap<String, Long>();
+		metrics.put("retry-attempts", retried.sum());
+		metrics.put("retry-exhausted", exhausted.sum());
+		return metrics;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Scheduler shared by the background tasks of this plug-in: token refreshes, operation polls, inventory refreshes and
+ * stream heartbeats. A single daemon thread triggers the tasks, and each task runs in its own virtual thread, so a long
+ * task never delays the other ones.
+ */
+@Component
+public class AzureScheduler {
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		final var thread = new Thread(r, "azure-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Run a task once after the given delay.
+	 *
+	 * @param task  The task to run.
+	 * @param delay The delay before the run. A negative delay is a zero delay.
+	 * @param unit  The delay unit.
+	 * @return The pending trigger of the task.
+	 */
+	public ScheduledFuture<?> schedule(final Runnable task, final long delay, final TimeUnit unit) {
+		return scheduler.schedule(() -> Thread.ofVirtual().start(task), Math.max(0, delay), unit);
+	}
+
+	/**
+	 * Run a task periodically, the first time after the given delay.
+	 *
+	 * @param task  The task to run.
+	 * @param delay The delay before the first run and between two runs.
+	 * @param unit  The delay unit.
+	 * @return The pending trigger of the task.
+	 */
+	public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable task, final long delay, final TimeUnit unit) {
+		return scheduler.scheduleWithFixedDelay(() -> Thread.ofVirtual().start(task), delay, delay, unit);
+	}
+
+	/**
+	 * Stop all pending tasks.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+}
@@ -0,0 +1,26 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Authenticated Azure session: the bearer token attached to each request and the digest of its credentials.
+ */
+@Getter
+@AllArgsConstructor
+public class AzureSession {
+
+	/**
+	 * Token used to authenticate requests.
+	 */
+	private final String token;
+
+	/**
+	 * Digest of the tenant, principal and secret owning the token. Used to share the responses only among requests
+	 * of the same credentials, so a wrong secret never gets the data read with the right one.
+	 */
+	private final String credentials;
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-flight execution table: concurrent executions sharing the same key are merged into a single one, and all callers
+ * get the same result. Nothing is kept once the execution is completed, so this is not a cache.
+ *
+ * @param <K> The key type.
+ * @param <V> The result type.
+ */
+public class AzureSingleFlight<K, V> {
+
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Amount of executions requested through this table.
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Amount of executions merged into an in-flight one.
+	 */
+	private final LongAdder merges = new LongAdder();
+
+	/**
+	 * Execute the given loader, or wait for the in-flight execution having the same key.
+	 *
+	 * @param key    The execution key.
+	 * @param loader The loader executed only when there is no in-flight execution for the same key.
+	 * @return The result of the loader, may be shared with concurrent callers.
+	 */
+	public V execute(final K key, final Supplier<V> loader) {
+		hits.increment();
+		final var own = new CompletableFuture<V>();
+		final var existing = inFlight.putIfAbsent(key, own);
+		if (existing != null) {
+			// Merge this execution with the in-flight one
+			merges.increment();
+			return join(existing);
+		}
+		try {
+			final var result = loader.get();
+			own.complete(result);
+			return result;
+		} catch (final RuntimeException | Error e) {
+			own.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, own);
+		}
+	}
+
+	/**
+	 * Wait for the in-flight execution and propagate its failure as is.
+	 */
+	private V join(final CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Return the amount of executions requested through this table.
+	 *
+	 * @return The amount of executions requested through this table.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Return the amount of executions merged into an in-flight one.
+	 *
+	 * @return The amount of executions merged into an in-flight one, so the amount of saved executions.
+	 */
+	public long getMerges() {
+		return merges.sum();
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Azure compute resource SKU: a VM size with its capabilities and the locations where it is offered.
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AzureSku {
+
+	/**
+	 * The resource type. Like "virtualMachines" or "disks".
+	 */
+	private String resourceType;
+
+	/**
+	 * The SKU name. Like "Standard_DS1_v2".
+	 */
+	private String name;
+
+	private List<String> locations;
+
+	private List<AzureSkuCapability> capabilities;
+
+	/**
+	 * The restrictions of this SKU for the subscription.
+	 */
+	private List<AzureSkuRestriction> restrictions;
+
+	/**
+	 * A capability of a SKU. Like "vCPUs" or "MemoryGB".
+	 */
+	@Getter
+	@Setter
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class AzureSkuCapability {
+		private String name;
+		private String value;
+	}
+
+	/**
+	 * A restriction of a SKU. Like a "Location" restriction with the "NotAvailableForSubscription" reason.
+	 */
+	@Getter
+	@Setter
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class AzureSkuRestriction {
+
+		/**
+		 * The restriction type. Like "Location" or "Zone".
+		 */
+		private String type;
+
+		/**
+		 * The restricted values, such as the locations of a "Location" restriction.
+		 */
+		private List<String> values;
+
+		/**
+		 * The restriction reason. Like "NotAvailableForSubscription" or "QuotaId".
+		 */
+		private String reasonCode;
+	}
+}
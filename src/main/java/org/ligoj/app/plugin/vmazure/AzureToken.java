@@ -0,0 +1,66 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Azure bearer token with its issue and expiration dates.
+ */
+@Getter
+@AllArgsConstructor
+public class AzureToken implements Serializable {
+
+	/**
+	 * SID
+	 */
+	private static final long serialVersionUID = 2L;
+
+	/**
+	 * The bearer token.
+	 */
+	private final String accessToken;
+
+	/**
+	 * Issue date, milliseconds since epoch.
+	 */
+	private final long issuedOn;
+
+	/**
+	 * Expiration date, milliseconds since epoch.
+	 */
+	private final long expiresOn;
+
+	/**
+	 * Build a token issued now.
+	 *
+	 * @param accessToken The bearer token.
+	 * @param expiresOn   Expiration date, milliseconds since epoch.
+	 */
+	public AzureToken(final String accessToken, final long expiresOn) {
+		this(accessToken, System.currentTimeMillis(), expiresOn);
+	}
+
+	/**
+	 * Return the lifetime of this token.
+	 *
+	 * @return The lifetime in milliseconds.
+	 */
+	public long getLifetime() {
+		return expiresOn - issuedOn;
+	}
+
+	/**
+	 * Indicate this token is still valid at the given date.
+	 *
+	 * @param now The current date, milliseconds since epoch.
+	 * @return <code>true</code> when this token is not expired.
+	 */
+	public boolean isValid(final long now) {
+		return now < expiresOn;
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.ligoj.bootstrap.resource.system.configuration.ConfigurationResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Azure token lifecycle manager. Tokens are kept with their expiration and are refreshed in background before they
+ * expire, so user requests never wait for the authority while the token is in use. A token not used since its last
+ * refresh is not refreshed again, and is dropped once expired. When enabled, the tokens are shared with the other nodes
+ * through the "azure-tokens" cache: a node reuses the token acquired by another one instead of requesting the
+ * authority.
+ */
+@Component
+@Slf4j
+public class AzureTokenManager {
+
+	/**
+	 * Delay before the token expiration from which the token is refreshed in background, in seconds. Limited to the
+	 * half of the token lifetime.
+	 */
+	public static final String CONF_REFRESH_LEAD = AbstractAzureToolPluginResource.PLUGIN_KEY + ":token-refresh-lead";
+
+	/**
+	 * Default delay before the token expiration from which the token is refreshed in background, in seconds.
+	 */
+	public static final int DEFAULT_REFRESH_LEAD = 300;
+
+	/**
+	 * When <code>true</code>, the tokens are shared with the other nodes of the cluster.
+	 */
+	public static final String CONF_SHARED = AbstractAzureToolPluginResource.PLUGIN_KEY + ":token-shared";
+
+	/**
+	 * Shared tokens cache name.
+	 */
+	private static final String SHARED_CACHE = "azure-tokens";
+
+	/**
+	 * Delay before a new attempt of a failed background refresh, in seconds.
+	 */
+	private static final int REFRESH_RETRY_DELAY = 30;
+
+	/**
+	 * Minimal remaining validity of a served token, in milliseconds, so it does not expire on its way to Azure.
+	 */
+	private static final long EXPIRY_MARGIN = TimeUnit.SECONDS.toMillis(REFRESH_RETRY_DELAY);
+
+	@Autowired
+	protected ConfigurationResource configuration;
+
+	@Autowired
+	protected CacheManager cacheManager;
+
+	private final Map<String, TokenEntry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * In-flight token acquisitions, so concurrent requests of a missing token acquire it only once.
+	 */
+	private final AzureSingleFlight<String, AzureToken> acquisitions = new AzureSingleFlight<>();
+
+	@Autowired
+	protected AzureScheduler scheduler;
+
+	/**
+	 * A managed token with the way to acquire a new one.
+	 */
+	private static class TokenEntry {
+		private final Supplier<AzureToken> loader;
+		private volatile AzureToken token;
+
+		/**
+		 * When <code>true</code>, the token has been used since the last refresh.
+		 */
+		private volatile boolean used = true;
+
+		private TokenEntry(final Supplier<AzureToken> loader, final AzureToken token) {
+			this.loader = loader;
+			this.token = token;
+		}
+	}
+
+	/**
+	 * Return a valid token from the managed ones, or acquire a new one.
+	 *
+	 * @param key     The token key, identifying the credentials.
+	 * @param loader  The token acquisition function. Returns <code>null</code> when the acquisition failed. Kept in
+	 *                memory for the background refreshes.
+	 * @param retries The amount of attempts after a failed acquisition.
+	 * @param failure The exception supplier used when all attempts failed.
+	 * @return The bearer token.
+	 */
+	public String getToken(final String key, final Supplier<AzureToken> loader, final int retries,
+			final Supplier<? extends RuntimeException> failure) {
+		final var entry = entries.get(key);
+		if (entry != null && entry.token.isValid(System.currentTimeMillis() + EXPIRY_MARGIN)) {
+			// Valid token, may be refreshed in background
+			entry.used = true;
+			return entry.token.getAccessToken();
+		}
+
+		// Missing or almost expired token, this request has to wait for the authority or the other nodes
+		return acquisitions.execute(key, () -> acquire(key, loader, retries, failure)).getAccessToken();
+	}
+
+	/**
+	 * Acquire a new token, from the other nodes or from the authority, and schedule its refresh.
+	 */
+	private AzureToken acquire(final String key, final Supplier<AzureToken> loader, final int retries,
+			final Supplier<? extends RuntimeException> failure) {
+		final var shared = getShared(key);
+		if (shared != null) {
+			// Token acquired by another node
+			return register(key, loader, shared);
+		}
+		for (var attempt = 0; attempt <= retries; attempt++) {
+			final var token = loader.get();
+			if (token != null) {
+				putShared(key, token);
+				return register(key, loader, token);
+			}
+		}
+		throw failure.get();
+	}
+
+	private AzureToken register(final String key, final Supplier<AzureToken> loader, final AzureToken token) {
+		final var entry = new TokenEntry(loader, token);
+		entries.put(key, entry);
+		scheduleRefresh(key, entry);
+		return token;
+	}
+
+	/**
+	 * Return the delay before the token expiration from which the token is refreshed. A lifetime shorter than the
+	 * configured lead would make each new token immediately refreshed, so the lead is at most the half of the
+	 * lifetime.
+	 *
+	 * @param token The token to refresh.
+	 * @return The delay in milliseconds.
+	 */
+	protected long getRefreshLead(final AzureToken token) {
+		return Math.min(TimeUnit.SECONDS.toMillis(configuration.get(CONF_REFRESH_LEAD, DEFAULT_REFRESH_LEAD)),
+				token.getLifetime() / 2);
+	}
+
+	/**
+	 * Schedule the background refresh of the given token.
+	 */
+	private void scheduleRefresh(final String key, final TokenEntry entry) {
+		schedule(key, entry, entry.token.getExpiresOn() - getRefreshLead(entry.token) - System.currentTimeMillis());
+	}
+
+	/**
+	 * Return the token shared by another node, when sharing is enabled and this token does not need a refresh yet.
+	 *
+	 * @param key The token key.
+	 * @return The shared token or <code>null</code>.
+	 */
+	private AzureToken getShared(final String key) {
+		if (!configuration.get(CONF_SHARED, false)) {
+			return null;
+		}
+		final var token = cacheManager.getCache(SHARED_CACHE).get(key, AzureToken.class);
+		return token != null && token.isValid(System.currentTimeMillis() + getRefreshLead(token)) ? token : null;
+	}
+
+	/**
+	 * Share the given token with the other nodes, when sharing is enabled.
+	 *
+	 * @param key   The token key.
+	 * @param token The token to share.
+	 */
+	private void putShared(final String key, final AzureToken token) {
+		if (configuration.get(CONF_SHARED, false)) {
+			cacheManager.getCache(SHARED_CACHE).put(key, token);
+		}
+	}
+
+	private void schedule(final String key, final TokenEntry entry, final long delay) {
+		scheduler.schedule(() -> refresh(key, entry), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Refresh the token in background. The current token is still served during the refresh.
+	 *
+	 * @param key   The token key.
+	 * @param entry The entry to refresh.
+	 */
+	private void refresh(final String key, final TokenEntry entry) {
+		if (entries.get(key) != entry) {
+			// Token has been dropped or replaced
+			return;
+		}
+		if (!entry.used) {
+			// Unused token, let it expire
+			entries.remove(key, entry);
+			return;
+		}
+		entry.used = false;
+		final var shared = getShared(key);
+		if (shared != null && shared.getExpiresOn() > entry.token.getExpiresOn()) {
+			// Token already refreshed by another node
+			entry.token = shared;
+			scheduleRefresh(key, entry);
+			return;
+		}
+		final var token = entry.loader.get();
+		if (token == null) {
+			// Keep serving the current token, and try again later while it is still valid
+			log.info("Azure token refresh failed, current token is kept until its expiration");
+			entry.used = true;
+			if (entry.token.isValid(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(REFRESH_RETRY_DELAY))) {
+				schedule(key, entry, TimeUnit.SECONDS.toMillis(REFRESH_RETRY_DELAY));
+			}
+			return;
+		}
+		putShared(key, token);
+		entry.token = token;
+		scheduleRefresh(key, entry);
+	}
+
+	/**
+	 * Drop all managed tokens of this node. The shared tokens are not dropped.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.ArrayList;
+import java.util.function.UnaryOperator;
+
+/**
+ * Parsed URL template with <code>{name}</code> variables. The template is parsed once, and rendered in a single pass
+ * without intermediate strings. A variable without value is rendered as is, so it can be resolved later.
+ */
+public class AzureUrlTemplate {
+
+	/**
+	 * Literal parts: one more than the variables, the variable <code>i</code> is between the literals <code>i</code>
+	 * and <code>i+1</code>.
+	 */
+	private final String[] literals;
+
+	/**
+	 * Variable names, without braces.
+	 */
+	private final String[] variables;
+
+	/**
+	 * Length of all literal parts.
+	 */
+	private final int length;
+
+	private AzureUrlTemplate(final String[] literals, final String[] variables) {
+		this.literals = literals;
+		this.variables = variables;
+		var literalsLength = 0;
+		for (final var literal : literals) {
+			literalsLength += literal.length();
+		}
+		this.length = literalsLength;
+	}
+
+	/**
+	 * Parse the given template.
+	 *
+	 * @param template The URL template with <code>{name}</code> variables.
+	 * @return The parsed template.
+	 */
+	public static AzureUrlTemplate compile(final String template) {
+		final var literals = new ArrayList<String>();
+		final var variables = new ArrayList<String>();
+		var start = 0;
+		var open = template.indexOf('{');
+		while (open != -1) {
+			final var close = template.indexOf('}', open);
+			if (close == -1) {
+				// Not a variable
+				break;
+			}
+			literals.add(template.substring(start, open));
+			variables.add(template.substring(open + 1, close));
+			start = close + 1;
+			open = template.indexOf('{', start);
+		}
+		literals.add(template.substring(start));
+		return new AzureUrlTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new));
+	}
+
+	/**
+	 * Return the length of the literal parts, so a lower bound of the rendered length.
+	 *
+	 * @return The length of the literal parts.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Render this template into the given builder.
+	 *
+	 * @param out      The target builder.
+	 * @param resolver The variable resolver: from the variable name to its value, or <code>null</code> to keep the
+	 *                 variable as is.
+	 * @return The given builder.
+	 */
+	public StringBuilder render(final StringBuilder out, final UnaryOperator<String> resolver) {
+		out.append(literals[0]);
+		for (var i = 0; i < variables.length; i++) {
+			final var value = resolver.apply(variables[i]);
+			if (value == null) {
+				out.append('{').append(variables[i]).append('}');
+			} else {
+				out.append(value);
+			}
+			out.append(literals[i + 1]);
+		}
+		return out;
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Event published when the state of an Azure VM may have changed. Serializable, so it can be relayed to the other
+ * nodes.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class AzureVmEvent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The related subscription identifier. May be <code>null</code> when the change is not related to a known
+	 * subscription.
+	 */
+	private final Integer subscription;
+
+	/**
+	 * The Azure subscription identifier.
+	 */
+	private final String azSub;
+
+	/**
+	 * The resource group name.
+	 */
+	private final String group;
+
+	/**
+	 * The VM name.
+	 */
+	private final String vm;
+
+	/**
+	 * The operation at the origin of this change. Like "powerOff".
+	 */
+	private final String operation;
+
+	/**
+	 * The final status of the operation. Like "Succeeded".
+	 */
+	private final String status;
+
+	/**
+	 * The new VM state when known. <code>null</code> when only the operation is known.
+	 */
+	private final AzureVmState state;
+
+	/**
+	 * Build an event of a completed operation, without the new VM state.
+	 *
+	 * @param subscription The related subscription identifier. May be <code>null</code>.
+	 * @param azSub        The Azure subscription identifier.
+	 * @param group        The resource group name.
+	 * @param vm           The VM name.
+	 * @param operation    The operation at the origin of this change.
+	 * @param status       The final status of the operation.
+	 */
+	public AzureVmEvent(final Integer subscription, final String azSub, final String group, final String vm,
+			final String operation, final String status) {
+		this(subscription, azSub, group, vm, operation, status, null);
+	}
+}
@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.plugin.vmazure;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -13,7 +14,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 /**
- * Azure Virtual machine query list.
+ * Azure Virtual machine query list. Entries are {@link Serializable} to be stored in the resource group snapshot cache.
  */
 @Getter
 @Setter
@@ -25,13 +26,23 @@ public class AzureVmList {
 	 */
 	private List<AzureVmEntry> value;
 
+	/**
+	 * URL of the next page, when there are more VMs.
+	 */
+	private String nextLink;
+
 	/**
 	 * Azure VM wrapper
 	 */
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class AzureVmEntry {
+	public static class AzureVmEntry implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
 
 		private AzureVmDetails properties;
 		private String name;
@@ -44,7 +55,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class AzureVmDetails {
+	public static class AzureVmDetails implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private String vmId;
 		private Map<String, String> hardwareProfile;
 		private AzureVmStorageProfile storageProfile;
@@ -58,7 +75,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class AzureVmNetworkProfile {
+	public static class AzureVmNetworkProfile implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private Collection<AzureVmNicRef> networkInterfaces;
 	}
 
@@ -68,7 +91,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class AzureVmNicRef {
+	public static class AzureVmNicRef implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private String id;
 	}
 
@@ -78,7 +107,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class AzureVmStorageProfile {
+	public static class AzureVmStorageProfile implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private AzureVmOs imageReference;
 		private AzureVmDisk osDisk;
 	}
@@ -89,7 +124,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class AzureVmOs {
+	public static class AzureVmOs implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private String publisher;
 		private String offer;
 		private String sku;
@@ -102,7 +143,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class AzureVmDisk {
+	public static class AzureVmDisk implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private String osType;
 		private int diskSizeGB;
 	}
@@ -113,7 +160,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class InstanceView {
+	public static class InstanceView implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private List<VmStatus> statuses;
 	}
 
@@ -123,7 +176,13 @@ public class AzureVmList {
 	@Getter
 	@Setter
 	@JsonIgnoreProperties(ignoreUnknown = true)
-	public static class VmStatus {
+	public static class VmStatus implements Serializable {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
 		private String code;
 	}
 }
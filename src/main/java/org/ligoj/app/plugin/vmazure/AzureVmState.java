@@ -0,0 +1,36 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.io.Serializable;
+
+import org.ligoj.app.plugin.vm.model.VmStatus;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Azure VM volatile state, decoded from its instance view.
+ */
+@Getter
+@Setter
+public class AzureVmState implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The generic power status. May be <code>null</code> when not decoded.
+	 */
+	private VmStatus status;
+
+	/**
+	 * When <code>true</code>, a provisioning operation is in progress.
+	 */
+	private boolean busy;
+
+	/**
+	 * When <code>true</code>, the VM is deallocated.
+	 */
+	private boolean deployed;
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.Strings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-Sent Events streams of the VM state changes. Each stream is bound to the subscriptions visible by its user, and
+ * receives a "vm" event holding the subscription identifier and only the changed fields of the VM state: "status",
+ * "busy" and "deployed". The first event of a subscription holds all fields. A periodic heartbeat comment keeps the
+ * idle streams open through the proxies, and releases the streams closed by the clients. A stream keeps only the VM
+ * coordinates of its subscriptions, never their credentials.
+ */
+@Component
+@Slf4j
+public class AzureVmStatusStream {
+
+	/**
+	 * Delay between two heartbeat comments, in seconds.
+	 */
+	public static final int HEARTBEAT_INTERVAL = 30;
+
+	@Autowired
+	protected ObjectMapper objectMapper;
+
+	@Autowired
+	protected AzureScheduler scheduler;
+
+	/**
+	 * The connected streams, where the key is the event sink.
+	 */
+	private final Map<SseEventSink, Client> clients = new ConcurrentHashMap<>();
+
+	/**
+	 * The VM of a subscription.
+	 *
+	 * @param azSub The Azure subscription identifier.
+	 * @param group The resource group name.
+	 * @param vm    The VM name.
+	 */
+	private record Target(String azSub, String group, String vm) {
+	}
+
+	/**
+	 * A connected stream. The events of a stream are sent one at a time, while holding the lock of this client.
+	 *
+	 * @param sink          The event sink.
+	 * @param sse           The event builder factory.
+	 * @param subscriptions The visible subscriptions, where the value is the related VM.
+	 * @param sent          The last sent state of each subscription.
+	 */
+	private record Client(SseEventSink sink, Sse sse, Map<Integer, Target> subscriptions,
+			Map<Integer, AzureVmState> sent) {
+	}
+
+	/**
+	 * Schedule the heartbeats.
+	 */
+	@PostConstruct
+	public void start() {
+		scheduler.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Register a stream and send the known state of each subscription.
+	 *
+	 * @param sink          The event sink.
+	 * @param sse           The event builder factory.
+	 * @param subscriptions The visible subscriptions, where the value is the subscription parameters. Only the VM
+	 *                      coordinates are kept.
+	 * @param states        The known VM states, where the key is the subscription. May not cover all subscriptions.
+	 */
+	public void register(final SseEventSink sink, final Sse sse, final Map<Integer, Map<String, String>> subscriptions,
+			final Map<Integer, AzureVmState> states) {
+		final var targets = new LinkedHashMap<Integer, Target>();
+		subscriptions.forEach((subscription, parameters) -> targets.put(subscription,
+				new Target(parameters.get(AbstractAzureToolPluginResource.PARAMETER_SUBSCRIPTION),
+						parameters.get(AbstractAzureToolPluginResource.PARAMETER_RESOURCE_GROUP),
+						parameters.get(VmAzurePluginResource.PARAMETER_VM))));
+		final var client = new Client(sink, sse, targets, new ConcurrentHashMap<>());
+		clients.put(sink, client);
+		states.forEach((subscription, state) -> send(client, subscription, state));
+	}
+
+	/**
+	 * Send a comment to all streams, and release the closed or failed ones.
+	 */
+	public void heartbeat() {
+		clients.values().removeIf(client -> client.sink().isClosed());
+		clients.values().forEach(client -> {
+			try {
+				send(client, client.sse().newEventBuilder().comment("heartbeat").build());
+			} catch (final IllegalStateException e) {
+				// Closed sink
+				clients.remove(client.sink());
+			}
+		});
+	}
+
+	/**
+	 * Send the changed fields of the VM state to the streams bound to this VM.
+	 *
+	 * @param event The VM change event. Ignored when the new state is unknown.
+	 */
+	@EventListener
+	public void onVmEvent(final AzureVmEvent event) {
+		if (event.getState() == null) {
+			return;
+		}
+		clients.values().removeIf(client -> client.sink().isClosed());
+		clients.values().forEach(client -> client.subscriptions().forEach((subscription, target) -> {
+			if (isSameVm(event, subscription, target)) {
+				send(client, subscription, event.getState());
+			}
+		}));
+	}
+
+	/**
+	 * Indicates the event is related to the VM of the given subscription.
+	 */
+	private boolean isSameVm(final AzureVmEvent event, final Integer subscription, final Target target) {
+		if (event.getSubscription() != null) {
+			return event.getSubscription().equals(subscription);
+		}
+		return Strings.CI.equals(event.getVm(), target.vm()) && Strings.CI.equals(event.getGroup(), target.group())
+				&& Strings.CI.equals(event.getAzSub(), target.azSub());
+	}
+
+	/**
+	 * Send the fields having changed since the last sent state of this subscription. The state comparison and the
+	 * sending are not interleaved with the ones of another thread.
+	 */
+	private void send(final Client client, final Integer subscription, final AzureVmState state) {
+		synchronized (client) {
+			sendDelta(client, subscription, state);
+		}
+	}
+
+	private void sendDelta(final Client client, final Integer subscription, final AzureVmState state) {
+		final var previous = client.sent().put(subscription, state);
+		final var delta = new LinkedHashMap<String, Object>();
+		if (previous == null || previous.getStatus() != state.getStatus()) {
+			delta.put("status", state.getStatus());
+		}
+		if (previous == null || previous.isBusy() != state.isBusy()) {
+			delta.put("busy", state.isBusy());
+		}
+		if (previous == null || previous.isDeployed() != state.isDeployed()) {
+			delta.put("deployed", state.isDeployed());
+		}
+		if (delta.isEmpty()) {
+			// Nothing has changed for this stream
+			return;
+		}
+		delta.put("subscription", subscription);
+		try {
+			send(client, client.sse().newEventBuilder().name("vm").mediaType(MediaType.APPLICATION_JSON_TYPE)
+					.data(objectMapper.writeValueAsString(delta)).build());
+		} catch (final JsonProcessingException | IllegalStateException e) {
+			// Closed sink or serialization failure
+			clients.remove(client.sink());
+		}
+	}
+
+	/**
+	 * Send an event to a stream, and release this stream when the sending fails. The heartbeat thread and the event
+	 * threads share the stream, so the events of a stream are sent one at a time.
+	 */
+	private void send(final Client client, final OutboundSseEvent event) {
+		synchronized (client) {
+			client.sink().send(event).whenComplete((r, e) -> {
+				if (e != null) {
+					log.info("VM status stream closed: {}", e.getMessage());
+					clients.remove(client.sink());
+				}
+			});
+		}
+	}
+
+	/**
+	 * Return the amount of connected streams.
+	 *
+	 * @return The amount of connected streams.
+	 */
+	public int getSize() {
+		return clients.size();
+	}
+}
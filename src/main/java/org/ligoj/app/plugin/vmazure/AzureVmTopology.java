@@ -0,0 +1,36 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.io.Serializable;
+
+import org.ligoj.app.plugin.vmazure.AzureVmList.InstanceView;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The rarely changing details of a VM: OS, disk, size and networks. The volatile status is not part of the cached
+ * topology.
+ */
+@Getter
+@Setter
+public class AzureVmTopology implements Serializable {
+
+	/**
+	 * SID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The VM details without status.
+	 */
+	private AzureVm vm;
+
+	/**
+	 * The instance view read with the topology. Only available when the topology has just been loaded, never
+	 * cached.
+	 */
+	private transient InstanceView instanceView;
+}
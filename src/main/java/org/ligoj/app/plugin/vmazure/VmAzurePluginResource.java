@@ -3,21 +3,32 @@
  */
 package org.ligoj.app.plugin.vmazure;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.ligoj.app.api.SubscriptionStatusWithData;
 import org.ligoj.app.dao.NodeRepository;
 import org.ligoj.app.plugin.vm.VmNetwork;
 import org.ligoj.app.plugin.vm.VmResource;
 import org.ligoj.app.plugin.vmazure.AzureNic.AzureIpConfiguration;
 import org.ligoj.app.plugin.vmazure.AzureNic.AzureIpConfigurationProperties;
+import org.ligoj.app.plugin.vmazure.AzureNic.AzurePublicIpRef;
 import org.ligoj.app.plugin.vmazure.AzurePublicIp.AzureDns;
 import org.ligoj.app.plugin.vmazure.AzureVmList.AzureVmEntry;
+import org.ligoj.app.plugin.vmazure.AzureVmList.InstanceView;
 import org.ligoj.app.plugin.vmazure.AzureVmList.AzureVmNicRef;
+import org.ligoj.app.plugin.vmazure.dao.AzureParameterValueRepository;
 import org.ligoj.app.plugin.vm.dao.VmScheduleRepository;
 import org.ligoj.app.plugin.vm.execution.VmExecutionServicePlugin;
 import org.ligoj.app.plugin.vm.model.VmExecution;
@@ -27,15 +38,31 @@ import org.ligoj.bootstrap.core.resource.BusinessException;
 import org.ligoj.bootstrap.core.security.SecurityHelper;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.cache.annotation.CacheKey;
+import javax.cache.annotation.CachePut;
+import javax.cache.annotation.CacheRemove;
 import javax.cache.annotation.CacheResult;
+import javax.cache.annotation.CacheValue;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Azure VM resource.
@@ -68,17 +95,86 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	 */
 	public static final String SIZES_URL = "subscriptions/{subscriptionId}/providers/Microsoft.Compute/locations/{location}/vmSizes?api-version={apiVersion}";
 
+	/**
+	 * REST URL format for the compute resource SKUs of all locations of a subscription.
+	 */
+	public static final String SKUS_URL = "subscriptions/{subscriptionId}/providers/Microsoft.Compute/skus?api-version=2021-07-01";
+
 	/**
 	 * REST URL format for a VM.
 	 */
 	public static final String VM_URL = COMPUTE_URL + "/{vm}?$expand=instanceView&api-version={apiVersion}";
 
+	/**
+	 * REST URL format for the instance view of a VM.
+	 */
+	public static final String VM_INSTANCE_VIEW_URL = COMPUTE_URL + "/{vm}/instanceView?api-version={apiVersion}";
+
+	/**
+	 * REST URL format to list VM within a resource group, including their instance view.
+	 */
+	public static final String FIND_VM_STATUS_URL = COMPUTE_URL + "?$expand=instanceView&api-version={apiVersion}";
+
 	/**
 	 * The managed VM name, not the VM identifier (vmid). Note that VM identifier cannot be used to filter resources...
 	 * Nevertheless, both ID and name can be used to find a VM during the subscription.
 	 */
 	public static final String PARAMETER_VM = KEY + ":name";
 
+	/**
+	 * Maximal amount of VMs returned by a search, the first ones in the name order. All pages are read.
+	 */
+	private static final String CONF_SEARCH_LIMIT = KEY + ":search-limit";
+
+	/**
+	 * Default maximal amount of VMs returned by a search.
+	 */
+	public static final int DEFAULT_SEARCH_LIMIT = 100;
+
+	/**
+	 * Maximal concurrent operations per Azure subscription during a bulk execution.
+	 */
+	private static final String CONF_BULK_SUBSCRIPTION_CONCURRENCY = KEY + ":bulk-subscription-concurrency";
+
+	/**
+	 * Default maximal concurrent operations per Azure subscription during a bulk execution.
+	 */
+	public static final int DEFAULT_BULK_SUBSCRIPTION_CONCURRENCY = 4;
+
+	/**
+	 * Maximal concurrent operations per tenant during a bulk execution.
+	 */
+	private static final String CONF_BULK_TENANT_CONCURRENCY = KEY + ":bulk-tenant-concurrency";
+
+	/**
+	 * Default maximal concurrent operations per tenant during a bulk execution.
+	 */
+	public static final int DEFAULT_BULK_TENANT_CONCURRENCY = 16;
+
+	/**
+	 * Shared secret expected in the {@value #EVENT_SECRET_HEADER} header of the Event Grid deliveries. When not
+	 * defined, all deliveries are refused.
+	 */
+	private static final String CONF_EVENT_SECRET = KEY + ":event-secret";
+
+	/**
+	 * Header holding the shared secret of the Event Grid deliveries, configured as a delivery property of the Event
+	 * Grid subscription.
+	 */
+	public static final String EVENT_SECRET_HEADER = "X-Ligoj-Event-Secret";
+
+	/**
+	 * Resource path of a VM as given in the subject of the Azure events.
+	 */
+	private static final Pattern EVENT_VM_SUBJECT = Pattern.compile(
+			"/subscriptions/([^/]+)/resourceGroups/([^/]+)/providers/Microsoft\\.Compute/virtualMachines/([^/]+)",
+			Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Cluster topic of the updated VM sizes, where the message is the key of the node local copy to invalidate.
+	 */
+	private static final String SIZES_TOPIC = "azure-sizes-invalidations";
+
 	private static final Map<VmOperation, String> OPERATION_TO_AZURE = new EnumMap<>(VmOperation.class);
 
 	static {
@@ -208,6 +304,10 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 		CODE_TO_STATUS.put("PowerState/stopping", VmStatus.POWERED_OFF);
 	}
 
+	static {
+		precompile(FIND_VM_STATUS_URL, OPERATION_VM, SIZES_URL, SKUS_URL, VM_INSTANCE_VIEW_URL, VM_URL);
+	}
+
 	static {
 		// Powered off status
 		registerOperation(VmStatus.POWERED_OFF, VmOperation.ON, VmOperation.ON);
@@ -231,7 +331,44 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	private NodeRepository nodeRepository;
 
 	@Autowired
-	private ObjectMapper objectMapper;
+	private AzureOperationTracker operationTracker;
+
+	@Autowired
+	protected ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private AzureParameterValueRepository parameterValueRepository;
+
+	@Autowired
+	private AzureVmStatusStream statusStream;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private AzureCache cache;
+
+	/**
+	 * In-flight loads of the VM sizes, where the key is the Azure subscription and the location.
+	 */
+	private final AzureSingleFlight<String, Map<String, VmSize>> sizesInFlight = new AzureSingleFlight<>();
+
+	/**
+	 * Node local copy of the VM sizes, where the key is the Azure subscription and the location.
+	 */
+	private final AzureNearCache<String, Map<String, VmSize>> sizesNearCache = new AzureNearCache<>("sizes",
+			AzureNearCache.DEFAULT_TTL, AzureCache.SIZES_MAX_ENTRIES);
+
+	/**
+	 * VM sizes loaded on demand by this node, where the key is the Azure subscription and the location, and the value
+	 * is the timestamp of the last load of the cluster cache entry.
+	 */
+	private final Map<String, Long> sizesLoaded = new ConcurrentHashMap<>();
+
+	/**
+	 * Cluster topic invalidating the node local copies of the VM sizes. <code>null</code> until joined.
+	 */
+	private ITopic<String> sizesInvalidations;
 
 	/**
 	 * Used for "this" and forcing proxying.
@@ -246,7 +383,8 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	}
 
 	/**
-	 * Find the virtual machines matching to the given criteria. Look into virtual machine name only.
+	 * Find the virtual machines matching to the given criteria. Look into virtual machine name only. The result is
+	 * sorted, then limited.
 	 *
 	 * @param node     the node to be tested with given parameters.
 	 * @param criteria the search criteria. Case is insensitive.
@@ -263,12 +401,211 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 			return Collections.emptyList();
 		}
 
-		// Get all VMs and then filter by its name or id
+		// Get all VMs page per page and then filter by its name
 		final var parameters = pvResource.getNodeParameters(node);
-		final var vmJson = Objects.toString(getAzureResource(parameters, FIND_VM_URL), "{\"value\":[]}");
-		final var azure = objectMapper.readValue(vmJson, AzureVmList.class);
-		return azure.getValue().stream().filter(vm -> Strings.CI.contains(vm.getName(), criteria))
-				.map(v -> toVm(v, null)).sorted().toList();
+		final var limit = configuration.get(CONF_SEARCH_LIMIT, DEFAULT_SEARCH_LIMIT);
+		final var result = new ArrayList<AzureVmEntry>();
+		try (var pages = getAzurePages(parameters, FIND_VM_URL)) {
+			while (pages.hasNext()) {
+				readMatchingVms(pages.next(), criteria, result);
+			}
+		}
+		return result.stream().map(v -> toVm(v, null)).sorted().limit(limit).toList();
+	}
+
+	/**
+	 * Stream a VM list page and bind only the entries whose name matches the criteria.
+	 *
+	 * @param vmJson   The raw VM list JSON page.
+	 * @param criteria The search criteria. Case is insensitive.
+	 * @param result   The matching VMs, in the original order. Completed by this method.
+	 * @throws IOException When Azure JSON read failed.
+	 */
+	private void readMatchingVms(final String vmJson, final String criteria, final List<AzureVmEntry> result)
+			throws IOException {
+		try (var parser = objectMapper.getFactory().createParser(vmJson)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final var field = parser.currentName();
+				if (parser.nextToken() == JsonToken.START_ARRAY && "value".equals(field)) {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						Optional.ofNullable(readMatchingVm(parser, criteria)).ifPresent(result::add);
+					}
+					break;
+				}
+				parser.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * Read the current VM entry and bind it only when its name matches the criteria. The tokens are buffered until the
+	 * name is read since Azure may return it after the properties. Once the name is known and does not match, the
+	 * remaining fields are skipped without buffering.
+	 *
+	 * @param parser   The parser positioned on the start of the entry.
+	 * @param criteria The search criteria. Case is insensitive.
+	 * @return The bound VM entry or <code>null</code> when its name does not match.
+	 * @throws IOException When Azure JSON read failed.
+	 */
+	private AzureVmEntry readMatchingVm(final JsonParser parser, final String criteria) throws IOException {
+		try (var buffer = new TokenBuffer(parser)) {
+			Boolean match = null;
+			buffer.writeStartObject();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final var field = parser.currentName();
+				parser.nextToken();
+				if (Boolean.FALSE.equals(match)) {
+					// Not matching entry, skip the remaining fields
+					parser.skipChildren();
+					continue;
+				}
+				if ("name".equals(field)) {
+					match = Strings.CI.contains(parser.getValueAsString(), criteria);
+				}
+				buffer.writeFieldName(field);
+				buffer.copyCurrentStructure(parser);
+			}
+			buffer.writeEndObject();
+			if (!Boolean.TRUE.equals(match)) {
+				return null;
+			}
+			try (var entryParser = buffer.asParser(objectMapper)) {
+				return objectMapper.readValue(entryParser, AzureVmEntry.class);
+			}
+		}
+	}
+
+	/**
+	 * Return the counters of this plug-in: shared requests and more.
+	 *
+	 * @return The counters where the key is the counter name.
+	 */
+	@GET
+	@Path("metrics")
+	@Override
+	public Map<String, Long> getMetrics() {
+		final var metrics = super.getMetrics();
+		metrics.putAll(sizesNearCache.getMetrics());
+		return metrics;
+	}
+
+	/**
+	 * Receive the Azure Event Grid deliveries. The validation handshake is answered with the given code. The state
+	 * changes of a VM invalidate the cached data of all subscriptions managing this VM, and an {@link AzureVmEvent} is
+	 * published for each of them. Events not related to a managed VM are ignored. The deliveries are refused while no
+	 * secret is configured. Exposed by {@link AzureEventResource} without authentication.
+	 *
+	 * @param secret The shared secret, given by the Event Grid subscription as a delivery property header, so it is
+	 *               not part of the URL.
+	 * @param events The delivered events.
+	 * @return The validation response when the deliveries contain the handshake, <code>null</code> otherwise.
+	 */
+	public Map<String, String> receiveEvents(final String secret, final List<AzureEvent> events) {
+		checkEventSecret(secret);
+		if (events == null || events.isEmpty()) {
+			throw new BadRequestException("Missing events");
+		}
+		if (events.stream().anyMatch(e -> e == null || e.getData() == null)) {
+			throw new BadRequestException("Missing event data");
+		}
+		String validation = null;
+		for (final var event : events) {
+			if (AzureEvent.VALIDATION_EVENT.equals(event.getEventType())) {
+				// The handshake is answered once all the other events are processed
+				validation = event.getData().getValidationCode();
+			} else {
+				receiveEvent(event);
+			}
+		}
+		return validation == null ? null : Map.of("validationResponse", validation);
+	}
+
+	/**
+	 * Open a Server-Sent Events stream of the state changes of the VMs of the given subscriptions. Only the changed
+	 * fields are sent. The changes are detected by the inventory refresher, including the ones caused by the tracked
+	 * operations and the Event Grid deliveries. The state known from the refreshed snapshots is sent first.
+	 *
+	 * @param subscriptions The subscription identifiers to follow. Must be visible by the current user.
+	 * @param sink          The event sink.
+	 * @param sse           The event builder factory.
+	 */
+	@GET
+	@Path("stream")
+	@Produces(MediaType.SERVER_SENT_EVENTS)
+	public void streamStatus(@QueryParam("subscription") final List<Integer> subscriptions,
+			@Context final SseEventSink sink, @Context final Sse sse) {
+		// Visibility is checked within the request thread
+		final var visible = new LinkedHashMap<Integer, Map<String, String>>();
+		subscriptions.forEach(subscription -> {
+			final var parameters = subscriptionResource.getParameters(subscription);
+			if (parameters.containsKey(PARAMETER_VM)) {
+				visible.put(subscription, parameters);
+			}
+		});
+		final var states = new HashMap<Integer, AzureVmState>();
+		visible.forEach((subscription, parameters) -> Optional.ofNullable(getRefreshedState(parameters))
+				.ifPresent(state -> states.put(subscription, state)));
+		statusStream.register(sink, sse, visible, states);
+	}
+
+	/**
+	 * Return the VM state from the snapshot kept up to date by the inventory refresher, without request.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @return The VM state, or <code>null</code> when not available from the refreshed snapshot.
+	 */
+	@SuppressWarnings("unchecked")
+	private AzureVmState getRefreshedState(final Map<String, String> parameters) {
+		final Map<String, AzureVmEntry> snapshot = getRefreshedSnapshots().get(getSnapshotKey(
+				parameters.get(PARAMETER_SUBSCRIPTION), parameters.get(PARAMETER_RESOURCE_GROUP),
+				getCredentials(parameters)), Map.class);
+		final var entry = snapshot == null ? null
+				: snapshot.get(StringUtils.lowerCase(parameters.get(PARAMETER_VM), Locale.ROOT));
+		if (entry == null || entry.getProperties() == null || entry.getProperties().getInstanceView() == null) {
+			return null;
+		}
+		return toVmState(entry.getProperties().getInstanceView().getStatuses());
+	}
+
+	/**
+	 * Check the shared secret of the Event Grid deliveries. Without configured secret, all deliveries are refused.
+	 */
+	private void checkEventSecret(final String secret) {
+		final var expected = configuration.get(CONF_EVENT_SECRET);
+		if (StringUtils.isEmpty(expected) || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+				StringUtils.defaultString(secret).getBytes(StandardCharsets.UTF_8))) {
+			throw new ForbiddenException();
+		}
+	}
+
+	/**
+	 * Invalidate the cached data of the subscriptions managing the VM of the given event.
+	 */
+	private void receiveEvent(final AzureEvent event) {
+		final var matcher = EVENT_VM_SUBJECT.matcher(StringUtils.defaultString(event.getSubject()));
+		if (!matcher.find()) {
+			// Not a VM event
+			return;
+		}
+		final var azSub = matcher.group(1);
+		final var group = matcher.group(2);
+		final var name = matcher.group(3);
+		final var data = event.getData();
+		final var operation = StringUtils.substringAfterLast(
+				Strings.CI.removeEnd(data.getOperationName(), "/action"), "/");
+		parameterValueRepository.findAllSubscriptionsByData(PARAMETER_VM, name).forEach(subscription -> {
+			final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+			if (Strings.CI.equals(parameters.get(PARAMETER_SUBSCRIPTION), azSub)
+					&& Strings.CI.equals(parameters.get(PARAMETER_RESOURCE_GROUP), group)) {
+				log.info("Azure event {} on vm {} of subscription {}", event.getEventType(), name, subscription);
+				evictVm(parameters);
+				eventPublisher.publishEvent(new AzureVmEvent(subscription, azSub, group, name,
+						StringUtils.defaultIfEmpty(operation, null), data.getStatus()));
+			}
+		});
 	}
 
 	/**
@@ -276,11 +613,22 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	 */
 	private VmSize toVmSize(final Map<String, String> parameters, final String azSub, final String type,
 			final String location) {
+		final var lLocation = StringUtils.lowerCase(location, Locale.ROOT);
+		final var key = azSub + "/" + lLocation;
 		try {
-			return self.getInstanceSizes(azSub, location, parameters).getOrDefault(type, new VmSize(type));
-		} catch (final IOException ioe) {
+			// Concurrent misses of the same location share a single load. From the first load, the invalidations of
+			// the other members are received.
+			return sizesNearCache.get(key, () -> sizesInFlight.execute(key, () -> {
+				getSizesInvalidations();
+				try {
+					return self.getInstanceSizes(azSub, lLocation, parameters);
+				} catch (final IOException ioe) {
+					throw new UncheckedIOException(ioe);
+				}
+			})).getOrDefault(type, new VmSize(type));
+		} catch (final UncheckedIOException ioe) {
 			// Unmanaged size for this subscription
-			log.info("Unmanaged VM size {} : {}", type, ioe.getMessage());
+			log.info("Unmanaged VM size {} : {}", type, ioe.getCause().getMessage());
 			return new VmSize(type);
 		}
 	}
@@ -327,93 +675,350 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 
 	@Override
 	public AzureVm getVmDetails(final Map<String, String> parameters) {
+		return getVmDetails(parameters, false);
+	}
+
+	/**
+	 * Return the VM details. The topology is read from the cache, and the status from the instance view.
+	 *
+	 * @param parameters  The subscription parameters.
+	 * @param useSnapshot When <code>true</code>, the VM and its status are read from the resource group snapshot when
+	 *                    available, instead of querying this VM.
+	 * @return The VM details with its status and networks.
+	 */
+	private AzureVm getVmDetails(final Map<String, String> parameters, final boolean useSnapshot) {
+		// Get the oAuth token used by all requests
+		final var session = authenticate(parameters);
+		final var entry = useSnapshot ? getSnapshotEntry(parameters) : null;
+		final var topology = self.getVmTopology(parameters.get(PARAMETER_SUBSCRIPTION),
+				parameters.get(PARAMETER_RESOURCE_GROUP), parameters.get(PARAMETER_APP_ID),
+				parameters.get(PARAMETER_VM), parameters, entry);
+
+		// Get the status, from the just loaded topology, the snapshot or from the instance view
+		final var view = Optional.ofNullable(topology.getInstanceView())
+				.or(() -> Optional.ofNullable(entry).map(e -> e.getProperties().getInstanceView()))
+				.orElseGet(() -> getInstanceView(parameters, session));
+		final var vm = topology.getVm();
+		final var state = toVmState(view.getStatuses());
+		vm.setStatus(state.getStatus());
+		vm.setBusy(state.isBusy());
+		vm.setDeployed(state.isDeployed());
+		return vm;
+	}
+
+	/**
+	 * Return the VM state with a single request to its instance view. Neither the VM, its networks nor its sizes are
+	 * requested.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @return The VM state: power status, busy and deployed flags.
+	 */
+	public AzureVmState getVmStatus(final Map<String, String> parameters) {
+		return toVmState(getInstanceView(parameters, authenticate(parameters)).getStatuses());
+	}
+
+	/**
+	 * Return the instance view of a VM: power and provisioning states.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @param session    The authenticated session.
+	 * @return The instance view of the VM.
+	 */
+	private InstanceView getInstanceView(final Map<String, String> parameters, final AzureSession session) {
 		final var name = parameters.get(PARAMETER_VM);
-		try (var processor = new AzureCurlProcessor()) {
-			// Associate the oAuth token to the processor
-			authenticate(parameters, processor);
+		return readValue(getVmResource(name, session, buildUrl(parameters, VM_INSTANCE_VIEW_URL)), InstanceView.class);
+	}
 
-			// Get the VM data
-			final var vmJson = getVmResource(name, parameters, processor, VM_URL.replace("{vm}", name));
+	/**
+	 * Return the topology of a VM: the details without the status.
+	 *
+	 * @param azSub      The related Azure subscription identifier. Seem to duplicate the one inside the given
+	 *                   parameters, but required for the cache key.
+	 * @param group      The resource group name, required for the cache key.
+	 * @param principal  The application identifier, required for the cache key since visibility depends on it.
+	 * @param name       The VM name, required for the cache key.
+	 * @param parameters The credentials parameters.
+	 * @param known      The VM entry already read from the resource group snapshot, used only to load the topology
+	 *                   instead of querying this VM. May be <code>null</code>. Not part of the cache key, since the
+	 *                   topology is the same whatever its source.
+	 * @return The VM topology. The instance view is available only when the topology has just been loaded.
+	 */
+	@CacheResult(cacheName = "azure-vm-topology")
+	public AzureVmTopology getVmTopology(@CacheKey final String azSub, @CacheKey final String group,
+			@CacheKey final String principal, @CacheKey final String name, final Map<String, String> parameters,
+			final AzureVmEntry known) {
+		final var session = authenticate(parameters);
+
+		// Get the VM data, from the snapshot or from a specific request
+		final var azure = Optional.ofNullable(known)
+				.orElseGet(() -> readValue(getVmResource(name, session, buildUrl(parameters, VM_URL, Map.of("vm", name))),
+						AzureVmEntry.class));
+
+		// Get instance details
+		final BiFunction<String, String, VmSize> sizes = (t, l) -> toVmSize(parameters, azSub, t, l);
+		final var vm = toVm(azure, sizes);
+		vm.setNetworks(new ArrayList<>());
+
+		// Get network data for each network references
+		getNetworkDetails(name, parameters, session, azure.getProperties().getNetworkProfile().getNetworkInterfaces(),
+				vm.getNetworks());
+		final var topology = new AzureVmTopology();
+		topology.setVm(vm);
+		topology.setInstanceView(azure.getProperties().getInstanceView());
+		return topology;
+	}
 
-			// VM as been found, return the details with status
-			final var azure = readValue(vmJson, AzureVmEntry.class);
+	/**
+	 * Invalidate the topology of a VM.
+	 *
+	 * @param azSub     The related Azure subscription identifier.
+	 * @param group     The resource group name.
+	 * @param principal The application identifier.
+	 * @param name      The VM name.
+	 */
+	@CacheRemove(cacheName = "azure-vm-topology")
+	public void evictVmTopology(@CacheKey final String azSub, @CacheKey final String group,
+			@CacheKey final String principal, @CacheKey final String name) {
+		// Cache eviction only
+	}
 
-			// Get instance details
-			final var azSub = parameters.get(PARAMETER_SUBSCRIPTION);
-			final BiFunction<String, String, VmSize> sizes = (t, l) -> toVmSize(parameters, azSub, t, l);
-			final var vm = toVmStatus(azure, sizes);
-			vm.setNetworks(new ArrayList<>());
+	/**
+	 * Return the VM entry from the resource group snapshot. Only an entry having its instance view can be used.
+	 *
+	 * @param parameters The subscription parameters.
+	 * @return The VM entry with its instance view, or <code>null</code> when not available from the snapshot.
+	 */
+	private AzureVmEntry getSnapshotEntry(final Map<String, String> parameters) {
+		final var entry = self.getVmSnapshot(parameters.get(PARAMETER_SUBSCRIPTION),
+				parameters.get(PARAMETER_RESOURCE_GROUP), getCredentials(parameters), parameters)
+				.get(StringUtils.lowerCase(parameters.get(PARAMETER_VM), Locale.ROOT));
+		if (entry == null || entry.getProperties() == null || entry.getProperties().getInstanceView() == null) {
+			return null;
+		}
+		return entry;
+	}
 
-			// Get network data for each network references
-			getNetworkDetails(name, parameters, processor,
-					azure.getProperties().getNetworkProfile().getNetworkInterfaces(), vm.getNetworks());
-			return vm;
+	/**
+	 * Return all VMs of a resource group with their instance view. The snapshot kept up to date by the inventory
+	 * refresher is used when available. Otherwise, the resource group is listed with a single request, and this
+	 * snapshot is shared by all subscriptions targeting the same resource group during a short refresh window.
+	 *
+	 * @param azSub       The related Azure subscription identifier. Seem to duplicate the one inside the given
+	 *                    parameters, but required for the cache key.
+	 * @param group       The resource group name, required for the cache key.
+	 * @param credentials The digest of the credentials, required for the cache key since visibility depends on them.
+	 *                    See {@link #getCredentials(Map)}.
+	 * @param parameters  The credentials parameters.
+	 * @return The VMs of the resource group from all pages, where the key is the lower case VM name. Empty when the
+	 *         resource group cannot be listed.
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, AzureVmEntry> getVmSnapshot(final String azSub, final String group, final String credentials,
+			final Map<String, String> parameters) {
+		final var refreshed = getRefreshedSnapshots().get(getSnapshotKey(azSub, group, credentials), Map.class);
+		if (refreshed != null) {
+			return refreshed;
+		}
+		try {
+			return self.getVmSnapshotOnDemand(azSub, group, credentials, parameters);
+		} catch (final IOException e) {
+			// Not cached, the next request will try again
+			log.info(e.getMessage());
+			return new HashMap<>();
 		}
 	}
 
 	/**
-	 * Check the VM has been found with not <code>null</code> response.
+	 * Return all VMs of a resource group with their instance view, with a single request. Only the successful
+	 * listings are cached.
+	 *
+	 * @param azSub       The related Azure subscription identifier.
+	 * @param group       The resource group name.
+	 * @param credentials The digest of the credentials.
+	 * @param parameters  The credentials parameters.
+	 * @return The VMs of the resource group from all pages, where the key is the lower case VM name.
+	 * @throws IOException When the resource group cannot be listed.
 	 */
-	private String checkResponse(final String name, final String vmJson) {
-		if (vmJson == null) {
-			// Invalid VM identifier? This VM cannot be found
-			throw new ValidationJsonException(PARAMETER_VM, "azure-vm", name);
+	@CacheResult(cacheName = "azure-vm-snapshot-demand")
+	public Map<String, AzureVmEntry> getVmSnapshotOnDemand(@CacheKey final String azSub, @CacheKey final String group,
+			@CacheKey final String credentials, final Map<String, String> parameters) throws IOException {
+		final var snapshot = loadVmSnapshot(authenticate(parameters), buildUrl(parameters, FIND_VM_STATUS_URL));
+		if (snapshot == null) {
+			throw new IOException("Unable to list the VMs of resource group " + group);
 		}
-		return vmJson;
+		return snapshot;
 	}
 
 	/**
-	 * Fill the given VM with its network details.
+	 * Return the snapshots kept up to date by the inventory refresher.
 	 */
-	private void getNetworkDetails(final String name, final Map<String, String> parameters,
-			final AzureCurlProcessor processor, final Collection<AzureVmNicRef> nicRefs,
-			final Collection<VmNetwork> networks) {
-		nicRefs.stream()
-				.map(nicRef -> getVmResource(name, parameters, processor, nicRef.getId() + "?api-version=2017-09-01"))
-				// Parse the NIC JSON data and get the details
-				.forEach(nicJson -> getNicDetails(name, parameters, processor, readValue(nicJson, AzureNic.class),
-						networks));
+	private Cache getRefreshedSnapshots() {
+		return cacheManager.getCache("azure-vm-snapshot");
 	}
 
-	private String getVmResource(final String name, final Map<String, String> parameters,
-			final AzureCurlProcessor processor, final String resource) {
-		return checkResponse(name, execute(processor, "GET", buildUrl(parameters, resource), ""));
+	/**
+	 * Return the key of a refreshed snapshot.
+	 */
+	private static String getSnapshotKey(final String azSub, final String group, final String credentials) {
+		return azSub + "/" + group + "/" + credentials;
 	}
 
 	/**
-	 * Fill the given VM with its network details.
+	 * Return all VMs of a resource group with their instance view, from all pages. Return <code>null</code> when the
+	 * resource group cannot be listed.
 	 */
-	private void getNicDetails(final String name, final Map<String, String> parameters,
-			final AzureCurlProcessor processor, final AzureNic nic, final Collection<VmNetwork> networks) {
-		// Extract the direct private IP and the indirect public IP
-		nic.getProperties().getIpConfigurations().stream().map(AzureIpConfiguration::getProperties)
+	private Map<String, AzureVmEntry> loadVmSnapshot(final AzureSession session, final String url) {
+		final var snapshot = new HashMap<String, AzureVmEntry>();
+		try (var pages = new AzurePages(u -> execute(session, HttpMethod.GET, u, ""), url)) {
+			if (!pages.hasNext()) {
+				return null;
+			}
+			pages.forEachRemaining(page -> readValue(page, AzureVmList.class).getValue()
+					.forEach(vm -> snapshot.put(StringUtils.lowerCase(vm.getName(), Locale.ROOT), vm)));
+			if (pages.isTruncated()) {
+				// An incomplete snapshot would hide VMs
+				return null;
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Replace the refreshed snapshot of a resource group.
+	 *
+	 * @param azSub       The related Azure subscription identifier.
+	 * @param group       The resource group name.
+	 * @param credentials The digest of the credentials.
+	 * @param snapshot    The VMs of the resource group, where the key is the lower case VM name.
+	 */
+	public void putVmSnapshot(final String azSub, final String group, final String credentials,
+			final Map<String, AzureVmEntry> snapshot) {
+		getRefreshedSnapshots().put(getSnapshotKey(azSub, group, credentials), snapshot);
+	}
+
+	/**
+	 * Refresh the snapshots of the given resource groups with a limited parallelism. The authentications and the URLs
+	 * are resolved within the calling thread, once per credentials. The listings are paced as background calls. A
+	 * failed listing keeps the previous snapshot.
+	 *
+	 * @param groups      The parameters of one subscription per resource group to refresh.
+	 * @param concurrency The maximal concurrent resource group listings.
+	 * @return The refreshed snapshots, in the same order as the given groups. A <code>null</code> entry corresponds to
+	 *         a failed listing.
+	 */
+	public List<Map<String, AzureVmEntry>> refreshVmSnapshots(final List<Map<String, String>> groups,
+			final int concurrency) {
+		final var sessions = new HashMap<String, AzureSession>();
+		final var limit = new Semaphore(Math.max(1, concurrency));
+		final var snapshots = new AtomicReferenceArray<Map<String, AzureVmEntry>>(groups.size());
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (var i = 0; i < groups.size(); i++) {
+				final var parameters = groups.get(i);
+				final AzureSession session;
+				try {
+					session = sessions.computeIfAbsent(getCredentials(parameters), c -> authenticate(parameters));
+				} catch (final RuntimeException e) {
+					log.warn("Unable to authenticate for the VMs of resource group {}",
+							parameters.get(PARAMETER_RESOURCE_GROUP), e);
+					continue;
+				}
+				final var url = buildUrl(parameters, FIND_VM_STATUS_URL);
+				final var index = i;
+				executor.submit(() -> {
+					limit.acquireUninterruptibly();
+					try {
+						final var snapshot = AzureRateLimiter.background(() -> loadVmSnapshot(session, url));
+						if (snapshot == null) {
+							log.warn("Unable to list the VMs of resource group {}",
+									parameters.get(PARAMETER_RESOURCE_GROUP));
+							return;
+						}
+						self.putVmSnapshot(parameters.get(PARAMETER_SUBSCRIPTION),
+								parameters.get(PARAMETER_RESOURCE_GROUP), getCredentials(parameters), snapshot);
+						snapshots.set(index, snapshot);
+					} catch (final RuntimeException e) {
+						log.warn("Unable to refresh the VMs of resource group {}",
+								parameters.get(PARAMETER_RESOURCE_GROUP), e);
+					} finally {
+						limit.release();
+					}
+				});
+			}
+		}
+		return IntStream.range(0, groups.size()).mapToObj(snapshots::get).collect(Collectors.toList());
+	}
 
-				// Save the private IP
-				.peek(c -> networks.add(new VmNetwork("private", c.getPrivateIPAddress(), null)))
+	/**
+	 * Invalidate the snapshot of a resource group.
+	 *
+	 * @param azSub       The related Azure subscription identifier.
+	 * @param group       The resource group name.
+	 * @param credentials The digest of the credentials.
+	 */
+	@CacheRemove(cacheName = "azure-vm-snapshot-demand")
+	public void evictVmSnapshot(@CacheKey final String azSub, @CacheKey final String group,
+			@CacheKey final String credentials) {
+		getRefreshedSnapshots().evict(getSnapshotKey(azSub, group, credentials));
+	}
 
-				// Check there is an attached public IP
-				.map(AzureIpConfigurationProperties::getPublicIPAddress).filter(Objects::nonNull)
+	/**
+	 * Check the VM has been found with not <code>null</code> response.
+	 */
+	private <T> T checkResponse(final String name, final T response) {
+		if (response == null) {
+			// Invalid VM identifier? This VM cannot be found
+			throw new ValidationJsonException(PARAMETER_VM, "azure-vm", name);
+		}
+		return response;
+	}
 
-				// Get the public IP json
-				.map(id -> getVmResource(name, parameters, processor, id.getId() + "?api-version=2017-09-01"))
+	/**
+	 * Fill the given VM with its network details. NICs are fetched together, then the public IPs are fetched
+	 * together. The networks are added in the same order as a sequential walk: private IP of each IP configuration,
+	 * followed by its public IP when attached.
+	 */
+	private void getNetworkDetails(final String name, final Map<String, String> parameters,
+			final AzureSession session, final Collection<AzureVmNicRef> nicRefs,
+			final Collection<VmNetwork> networks) {
+		// Get all NICs at once and extract the IP configurations
+		final var configurations = getVmResources(name, parameters, session,
+				nicRefs.stream().map(AzureVmNicRef::getId).toList(), AzureNic.class).stream()
+				.flatMap(nic -> nic.getProperties().getIpConfigurations().stream())
+				.map(AzureIpConfiguration::getProperties).toList();
+
+		// Get all attached public IPs at once
+		final var publicIps = getVmResources(name, parameters, session,
+				configurations.stream().map(AzureIpConfigurationProperties::getPublicIPAddress)
+						.filter(Objects::nonNull).map(AzurePublicIpRef::getId).toList(), AzurePublicIp.class)
+				.iterator();
 
-				// Parse the public IP JSON data
-				.map(i -> readValue(i, AzurePublicIp.class)).map(AzurePublicIp::getProperties)
+		// Extract the direct private IP and the indirect public IP
+		configurations.forEach(c -> {
+			// Save the private IP
+			networks.add(new VmNetwork("private", c.getPrivateIPAddress(), null));
 
+			// Check there is an attached public IP
+			if (c.getPublicIPAddress() != null) {
 				// Get the public IP and the optional DNS
-				.forEach(i -> networks.add(new VmNetwork("public", i.getIpAddress(),
-						Optional.ofNullable(i.getDnsSettings()).map(AzureDns::getFqdn).orElse(null))));
+				final var ip = publicIps.next().getProperties();
+				networks.add(new VmNetwork("public", ip.getIpAddress(),
+						Optional.ofNullable(ip.getDnsSettings()).map(AzureDns::getFqdn).orElse(null)));
+			}
+		});
+	}
+
+	private String getVmResource(final String name, final AzureSession session, final String url) {
+		return checkResponse(name, execute(session, "GET", url, ""));
 	}
 
 	/**
-	 * Parse the String and return a runtime exception whn is not a correct JSON.
+	 * Return the parsed network resources identified by the given Azure identifiers. Not modified resources are reused,
+	 * and the resources are returned in the same order as the identifiers.
 	 */
-	private <T> T readValue(final String json, final Class<T> clazz) {
-		try {
-			return objectMapper.readValue(json, clazz);
-		} catch (final IOException e) {
-			throw new IllegalArgumentException(e);
-		}
+	private <T> List<T> getVmResources(final String name, final Map<String, String> parameters,
+			final AzureSession session, final List<String> ids, final Class<T> type) {
+		final var urls = ids.stream().map(id -> buildUrl(parameters, id + "?api-version=2017-09-01")).toList();
+		return getResources(session, urls, type).stream().map(r -> checkResponse(name, r)).toList();
 	}
 
 	/**
@@ -427,31 +1032,27 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 
 		// Get all VMs and then filter by its name or id
 		final var name = parameters.get(PARAMETER_VM);
-		final var vmJson = checkResponse(name, getAzureResource(parameters, VM_URL.replace("{vm}", name)));
+		final var vmJson = checkResponse(name, getAzureResource(parameters, VM_URL));
 
 		// VM as been found, return the details with status
 		return objectMapper.readValue(vmJson, AzureVmEntry.class);
 	}
 
 	/**
-	 * Build a described {@link AzureVm} bean the JSON VM instance view.
+	 * Build the VM state from the JSON VM instance view statuses.
 	 */
-	private AzureVm toVmStatus(final AzureVmEntry azureVm, BiFunction<String, String, VmSize> sizeProvider) {
-		final var result = toVm(azureVm, sizeProvider);
-		final var properties = azureVm.getProperties();
-
-		// State
-		final var statuses = properties.getInstanceView().getStatuses();
-		result.setStatus(getStatus(statuses));
-		result.setBusy(isBusy(statuses));
-		result.setDeployed(isDeployed(statuses));
-		return result;
+	static AzureVmState toVmState(final List<AzureVmList.VmStatus> statuses) {
+		final var state = new AzureVmState();
+		state.setStatus(getStatus(statuses));
+		state.setBusy(isBusy(statuses));
+		state.setDeployed(isDeployed(statuses));
+		return state;
 	}
 
 	/**
 	 * Return the generic VM status from the Azure statuses
 	 */
-	private VmStatus getStatus(final List<AzureVmList.VmStatus> statuses) {
+	private static VmStatus getStatus(final List<AzureVmList.VmStatus> statuses) {
 		return statuses.stream().map(AzureVmList.VmStatus::getCode).map(CODE_TO_STATUS::get).filter(Objects::nonNull)
 				.findFirst().orElse(null);
 	}
@@ -459,7 +1060,7 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	/**
 	 * Return the generic VM status from the Azure statuses
 	 */
-	private boolean isBusy(final List<AzureVmList.VmStatus> statuses) {
+	private static boolean isBusy(final List<AzureVmList.VmStatus> statuses) {
 		return statuses.stream().map(AzureVmList.VmStatus::getCode).filter(c -> c.startsWith("ProvisioningState"))
 				.anyMatch(c -> c.endsWith(BUSY_CODE));
 	}
@@ -467,13 +1068,13 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	/**
 	 * Return the generic VM status from the Azure statuses
 	 */
-	private boolean isDeployed(final List<AzureVmList.VmStatus> statuses) {
+	private static boolean isDeployed(final List<AzureVmList.VmStatus> statuses) {
 		return statuses.stream().map(AzureVmList.VmStatus::getCode).anyMatch(DEALLOCATED_CODE::equals);
 	}
 
 	@Override
-	protected String buildUrl(final Map<String, String> parameters, final String resource) {
-		return super.buildUrl(parameters, resource).replace("{vm}", parameters.getOrDefault(PARAMETER_VM, "-"));
+	protected String resolve(final Map<String, String> parameters, final String name, final Settings settings) {
+		return "vm".equals(name) ? parameters.getOrDefault(PARAMETER_VM, "-") : super.resolve(parameters, name, settings);
 	}
 
 	@Override
@@ -485,40 +1086,193 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	public SubscriptionStatusWithData checkSubscriptionStatus(final int subscription, final String node,
 			final Map<String, String> parameters) {
 		final var status = new SubscriptionStatusWithData();
-		status.put("vm", getVmDetails(parameters));
+		status.put("vm", getVmDetails(parameters, true));
 		status.put("schedules", vmScheduleRepository.countBySubscription(subscription));
 		return status;
 	}
 
 	@Override
 	public void execute(final VmExecution execution) {
+		executeAndTrack(execution);
+	}
+
+	/**
+	 * Execute the operation and track its completion in background. Once completed, the cached VM data are invalidated
+	 * and an {@link AzureVmEvent} is published.
+	 *
+	 * @param execution The execution to proceed.
+	 * @return The future completed with the final status of the Azure operation. Completed with <code>null</code> when
+	 *         the operation is useless.
+	 */
+	public CompletableFuture<String> executeAndTrack(final VmExecution execution) {
+		final var plan = toPlan(execution);
+		return executeAndTrack(plan, authenticate(plan.parameters()));
+	}
+
+	/**
+	 * Execute the operations concurrently using the shared executor service, so the pending operations are stopped
+	 * with this resource. The executions sharing the same credentials are grouped, so the token is acquired once per
+	 * group. The amount of concurrent operations is limited per Azure
+	 * subscription and per tenant.
+	 *
+	 * @param executions The executions to proceed.
+	 * @return The futures completed with the final status of each Azure operation, in the same order as the
+	 *         executions. A future is completed with <code>null</code> when the operation is useless.
+	 */
+	public List<CompletableFuture<String>> executeBulk(final List<VmExecution> executions) {
+		// Resolve the parameters and the URLs within the caller thread
+		final var plans = executions.stream().map(this::toPlan).toList();
+		final var results = plans.stream().map(p -> new CompletableFuture<String>()).toList();
+		final var subscriptionConcurrency = Math.max(1,
+				configuration.get(CONF_BULK_SUBSCRIPTION_CONCURRENCY, DEFAULT_BULK_SUBSCRIPTION_CONCURRENCY));
+		final var tenantConcurrency = Math.max(1,
+				configuration.get(CONF_BULK_TENANT_CONCURRENCY, DEFAULT_BULK_TENANT_CONCURRENCY));
+		final var subscriptionLimits = new HashMap<String, Semaphore>();
+		final var tenantLimits = new HashMap<String, Semaphore>();
+		plans.forEach(p -> {
+			subscriptionLimits.computeIfAbsent(p.parameters().get(PARAMETER_SUBSCRIPTION),
+					k -> new Semaphore(subscriptionConcurrency));
+			tenantLimits.computeIfAbsent(p.parameters().get(PARAMETER_TENANT), k -> new Semaphore(tenantConcurrency));
+		});
+
+		// Group the executions by credentials
+		final var groups = IntStream.range(0, plans.size()).boxed()
+				.collect(Collectors.groupingBy(i -> getCredentials(plans.get(i).parameters()), LinkedHashMap::new,
+						Collectors.toList()));
+		final var service = getExecutorService();
+		groups.values().forEach(group -> service.execute(() -> {
+			final AzureSession session;
+			try {
+				// A single token acquisition for this group
+				session = authenticate(plans.get(group.getFirst()).parameters());
+			} catch (final RuntimeException e) {
+				group.forEach(i -> results.get(i).completeExceptionally(e));
+				return;
+			}
+			group.forEach(i -> service.execute(() -> {
+				final var plan = plans.get(i);
+				executeBulk(plan, session, tenantLimits.get(plan.parameters().get(PARAMETER_TENANT)),
+						subscriptionLimits.get(plan.parameters().get(PARAMETER_SUBSCRIPTION)), results.get(i));
+			}));
+		}));
+		return results;
+	}
+
+	/**
+	 * Execute an operation of a bulk execution within the given limits. The subscription limit is acquired first, so
+	 * a busy subscription never holds the tenant permits needed by the other subscriptions of the same tenant. The
+	 * limits are released once the operation is accepted by Azure, without waiting for its completion.
+	 */
+	private void executeBulk(final VmOperationPlan plan, final AzureSession session, final Semaphore tenantLimit,
+			final Semaphore subscriptionLimit, final CompletableFuture<String> result) {
+		try {
+			subscriptionLimit.acquire();
+			try {
+				tenantLimit.acquire();
+				try {
+					// Bulk operations are background ones, paced when the quota is low
+					AzureRateLimiter.background(() -> executeAndTrack(plan, session)).whenComplete((s, e) -> {
+						if (e == null) {
+							result.complete(s);
+						} else {
+							result.completeExceptionally(e);
+						}
+					});
+				} finally {
+					tenantLimit.release();
+				}
+			} finally {
+				subscriptionLimit.release();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.completeExceptionally(e);
+		} catch (final RuntimeException e) {
+			log.info("Bulk operation {} failed for subscription {}: {}", plan.operation(), plan.subscription(),
+					e.getMessage());
+			result.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * An operation to execute, with the parameters and the URLs resolved within the caller thread.
+	 *
+	 * @param subscription The subscription identifier.
+	 * @param operation    The requested operation.
+	 * @param parameters   The subscription parameters.
+	 * @param statusUrl    The fully qualified URL of the VM instance view.
+	 * @param operationUrl The fully qualified URL of the VM operation, with the <code>{operation}</code> parameter to
+	 *                     replace.
+	 */
+	private record VmOperationPlan(int subscription, VmOperation operation, Map<String, String> parameters,
+			String statusUrl, String operationUrl) {
+	}
+
+	/**
+	 * Resolve the parameters and the URLs of an execution.
+	 */
+	private VmOperationPlan toPlan(final VmExecution execution) {
 		final var subscription = execution.getSubscription().getId();
-		final var operation = execution.getOperation();
 		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		return new VmOperationPlan(subscription, execution.getOperation(), parameters,
+				buildUrl(parameters, VM_INSTANCE_VIEW_URL), buildUrl(parameters, OPERATION_VM));
+	}
 
-		// First get VM state
-		final var vm = getVmDetails(parameters);
-		final var status = vm.getStatus();
+	/**
+	 * Execute the resolved operation and track its completion in background.
+	 */
+	private CompletableFuture<String> executeAndTrack(final VmOperationPlan plan, final AzureSession session) {
+		final var parameters = plan.parameters();
+		final var name = parameters.get(PARAMETER_VM);
+
+		// First get VM state, only from its instance view
+		final var view = readValue(checkResponse(name, execute(session, HttpMethod.GET, plan.statusUrl(), "")),
+				InstanceView.class);
+		final var status = toVmState(view.getStatuses()).getStatus();
 
 		// Get the right operation depending on the current state
+		final var operation = plan.operation();
 		final var operationF = failSafeOperation(status, operation);
 		if (operationF == null) {
 			// Final operation is considered as useless
 			log.info("Requested operation {} is marked as useless considering the status {} of vm {}", operation,
-					status, parameters.get(PARAMETER_VM));
-			return;
+					status, name);
+			return CompletableFuture.completedFuture(null);
 		}
 
 		// Execute the operation
-		checkSchedulerResponse(authenticateAndExecute(parameters, HttpMethod.POST,
-				OPERATION_VM.replace("{operation}", OPERATION_TO_AZURE.get(operationF))));
+		final var azOperation = OPERATION_TO_AZURE.get(operationF);
+		final var request = process(session, HttpMethod.POST, plan.operationUrl().replace("{operation}", azOperation));
+		checkSchedulerResponse(request);
+		evictVm(parameters);
+
+		// Track the completion at the rate Azure asks for, the token may be renewed during a long operation
+		final Function<String, AzureCurlRequest> poller = url -> AzureRateLimiter
+				.background(() -> process(authenticate(parameters), HttpMethod.GET, url));
+		return operationTracker.track(request, poller).thenApply(s -> {
+			evictVm(parameters);
+			eventPublisher.publishEvent(new AzureVmEvent(plan.subscription(), parameters.get(PARAMETER_SUBSCRIPTION),
+					parameters.get(PARAMETER_RESOURCE_GROUP), name, azOperation, s));
+			return s;
+		});
 	}
 
 	/**
-	 * Check the response is valid. For now, the response must not be <code>null</code>.
+	 * Invalidate the cached data of a VM: the status of this VM is no more accurate in the resource group snapshot,
+	 * and a deallocation may release its dynamic public IP.
 	 */
-	private void checkSchedulerResponse(final String response) {
-		if (response == null) {
+	private void evictVm(final Map<String, String> parameters) {
+		self.evictVmSnapshot(parameters.get(PARAMETER_SUBSCRIPTION), parameters.get(PARAMETER_RESOURCE_GROUP),
+				getCredentials(parameters));
+		self.evictVmTopology(parameters.get(PARAMETER_SUBSCRIPTION), parameters.get(PARAMETER_RESOURCE_GROUP),
+				parameters.get(PARAMETER_APP_ID), parameters.get(PARAMETER_VM));
+	}
+
+	/**
+	 * Check the response is valid. For now, the response status must be a success.
+	 */
+	private void checkSchedulerResponse(final AzureCurlRequest request) {
+		if (request.getResponseStatus() < 200 || request.getResponseStatus() >= 300) {
 			// The result is not correct
 			throw new BusinessException("vm-operation-execute");
 		}
@@ -545,14 +1299,216 @@ public class VmAzurePluginResource extends AbstractAzureToolPluginResource imple
 	 * @param location   The target location, required by Azure web service
 	 * @param parameters The credentials parameters.
 	 * @return Instance sizes mapping from the name.
-	 * @throws IOException When Azure JSON read failed.
+	 * @throws IOException When the sizes cannot be listed or read. This failure is cached briefly.
 	 */
-	@CacheResult(cacheName = "azure-sizes")
+	@CacheResult(cacheName = "azure-sizes", exceptionCacheName = "azure-sizes-errors",
+			cachedExceptions = IOException.class)
 	public Map<String, VmSize> getInstanceSizes(@CacheKey final String azSub, @CacheKey final String location,
 			final Map<String, String> parameters) throws IOException {
-		final var jsonSizes = getAzureResource(parameters,
-				SIZES_URL.replace("{subscriptionId}", azSub).replace("{location}", location));
-		return objectMapper.readValue(Objects.toString(jsonSizes, "{\"value\":[]}"), VmSizes.class).getValue()
+		final var sizes = loadInstanceSizes(azSub, location, parameters);
+		sizesLoaded.put(azSub + "/" + location, System.currentTimeMillis());
+		return sizes;
+	}
+
+	/**
+	 * Load the available Azure sizes of a location without cache.
+	 */
+	private Map<String, VmSize> loadInstanceSizes(final String azSub, final String location,
+			final Map<String, String> parameters) throws IOException {
+		final var jsonSizes = execute(authenticate(parameters), HttpMethod.GET,
+				buildUrl(parameters, SIZES_URL, Map.of("subscriptionId", azSub, "location", location)), "");
+		if (jsonSizes == null) {
+			// Not cached as an empty size list for the whole expiry
+			throw new IOException("Unavailable VM sizes for location " + location);
+		}
+		return objectMapper.readValue(jsonSizes, VmSizes.class).getValue()
 				.stream().collect(Collectors.toMap(VmSize::getName, Function.identity()));
 	}
+
+	/**
+	 * Invalidate the node local copies of the VM sizes, and forget the ones loaded on demand. The cluster cache is
+	 * unchanged.
+	 */
+	public void clearNearCaches() {
+		sizesNearCache.clear();
+		sizesLoaded.clear();
+	}
+
+	/**
+	 * Load again the VM sizes loaded on demand by this node before their expiry, so a user request never waits for
+	 * them. The locations already replaced in the meantime, such as by a resource SKUs listing, are not loaded again.
+	 * A failed load is attempted again at the next call.
+	 *
+	 * @param resolver The parameters of an Azure subscription. When <code>null</code>, the Azure subscription is no
+	 *                 more used and its locations are forgotten.
+	 * @param age      The age of the locations to load again, in milliseconds.
+	 * @return The amount of loaded locations.
+	 */
+	public int refreshInstanceSizesAhead(final Function<String, Map<String, String>> resolver, final long age) {
+		final var now = System.currentTimeMillis();
+		var refreshed = 0;
+		for (final var entry : sizesLoaded.entrySet()) {
+			if (entry.getValue() + age > now) {
+				continue;
+			}
+			final var azSub = StringUtils.substringBefore(entry.getKey(), "/");
+			final var location = StringUtils.substringAfter(entry.getKey(), "/");
+			final var parameters = resolver.apply(azSub);
+			if (parameters == null) {
+				sizesLoaded.remove(entry.getKey());
+				continue;
+			}
+			try {
+				final var sizes = AzureRateLimiter.background(() -> {
+					try {
+						return loadInstanceSizes(azSub, location, parameters);
+					} catch (final IOException ioe) {
+						throw new UncheckedIOException(ioe);
+					}
+				});
+				self.putInstanceSizes(azSub, location, sizes);
+				refreshed++;
+			} catch (final RuntimeException e) {
+				log.warn("Unable to load again the VM sizes of Azure subscription {} in {}", azSub, location, e);
+			}
+		}
+		return refreshed;
+	}
+
+	/**
+	 * Replace the available Azure sizes of a location.
+	 *
+	 * @param azSub    The related Azure subscription identifier.
+	 * @param location The target location.
+	 * @param sizes    Instance sizes mapping from the name.
+	 */
+	@CachePut(cacheName = "azure-sizes")
+	public void putInstanceSizes(@CacheKey final String azSub, @CacheKey final String location,
+			@CacheValue final Map<String, VmSize> sizes) {
+		// Cache update, and invalidate the local copies of all nodes
+		final var key = azSub + "/" + location;
+		sizesNearCache.remove(key);
+		sizesLoaded.computeIfPresent(key, (k, v) -> System.currentTimeMillis());
+		final var topic = getSizesInvalidations();
+		if (topic != null) {
+			topic.publish(key);
+		}
+	}
+
+	/**
+	 * Return the cluster topic invalidating the node local copies of the VM sizes, and join it when the cluster is
+	 * available.
+	 *
+	 * @return The cluster topic, or <code>null</code> when the cluster is not yet available.
+	 */
+	private synchronized ITopic<String> getSizesInvalidations() {
+		final var hazelcast = cache.getHazelcastInstance();
+		if (sizesInvalidations == null && hazelcast != null) {
+			sizesInvalidations = hazelcast.getTopic(SIZES_TOPIC);
+			sizesInvalidations.addMessageListener(this::onSizesInvalidation);
+		}
+		return sizesInvalidations;
+	}
+
+	/**
+	 * Invalidate the local copy of the VM sizes updated by another member.
+	 */
+	private void onSizesInvalidation(final Message<String> message) {
+		if (message.getPublishingMember() != null && !message.getPublishingMember().localMember()) {
+			// The cluster cache entry has been replaced
+			sizesNearCache.remove(message.getMessageObject());
+			sizesLoaded.computeIfPresent(message.getMessageObject(), (k, v) -> System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Load the available Azure sizes of all locations of the given Azure subscriptions with a single resource SKUs
+	 * listing per Azure subscription, and replace the cached sizes of each location. The authentications and the URLs
+	 * are resolved within the calling thread. A failed listing keeps the previous sizes, and the other Azure
+	 * subscriptions are still loaded.
+	 *
+	 * @param subscriptions The parameters of one subscription per Azure subscription.
+	 * @return The amount of refreshed locations.
+	 * @throws IllegalStateException When the sizes of an Azure subscription cannot be loaded.
+	 */
+	public int refreshInstanceSizes(final List<Map<String, String>> subscriptions) {
+		var refreshed = 0;
+		var failed = 0;
+		for (final var parameters : subscriptions) {
+			final var azSub = parameters.get(PARAMETER_SUBSCRIPTION);
+			try {
+				final var session = authenticate(parameters);
+				final var url = buildUrl(parameters, SKUS_URL);
+				final var sizes = new HashMap<String, Map<String, VmSize>>();
+				AzureRateLimiter.background(() -> {
+					try (var pages = new AzurePages(u -> execute(session, HttpMethod.GET, u, ""), url)) {
+						if (!pages.hasNext()) {
+							throw new IllegalStateException("Unavailable resource SKUs listing");
+						}
+						pages.forEachRemaining(page -> readSkus(page, sizes));
+						if (pages.isTruncated()) {
+							throw new IllegalStateException("Truncated resource SKUs listing");
+						}
+					}
+					return null;
+				});
+				sizes.forEach((location, locationSizes) -> self.putInstanceSizes(azSub, location, locationSizes));
+				refreshed += sizes.size();
+			} catch (final RuntimeException e) {
+				log.warn("Unable to load the VM sizes of Azure subscription {}", azSub, e);
+				failed++;
+			}
+		}
+		if (failed > 0) {
+			throw new IllegalStateException("Unable to load the VM sizes of " + failed + " Azure subscriptions");
+		}
+		return refreshed;
+	}
+
+	/**
+	 * Read the VM sizes from a resource SKUs page, without binding the whole page.
+	 */
+	private void readSkus(final String page, final Map<String, Map<String, VmSize>> sizes) {
+		try (var parser = objectMapper.createParser(page)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final var field = parser.currentName();
+				if ("value".equals(field) && parser.nextToken() == JsonToken.START_ARRAY) {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						readSku(parser.readValueAs(AzureSku.class), sizes);
+					}
+				} else {
+					parser.nextToken();
+					parser.skipChildren();
+				}
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Add the VM size of a SKU to each of its locations, except the locations not available for the subscription.
+	 */
+	private void readSku(final AzureSku sku, final Map<String, Map<String, VmSize>> sizes) {
+		if (!"virtualMachines".equals(sku.getResourceType()) || sku.getLocations() == null) {
+			return;
+		}
+		final var capabilities = Optional.ofNullable(sku.getCapabilities()).orElse(List.of()).stream()
+				.filter(c -> c.getName() != null && c.getValue() != null)
+				.collect(Collectors.toMap(AzureSku.AzureSkuCapability::getName,
+						AzureSku.AzureSkuCapability::getValue, (a, b) -> a));
+		final var size = new VmSize(sku.getName());
+		size.setNumberOfCores(NumberUtils.toInt(capabilities.get("vCPUs")));
+		size.setMemoryInMB((int) Math.round(NumberUtils.toDouble(capabilities.get("MemoryGB")) * 1024));
+		final var restricted = Optional.ofNullable(sku.getRestrictions()).orElse(List.of()).stream()
+				.filter(r -> "Location".equalsIgnoreCase(r.getType())
+						&& "NotAvailableForSubscription".equalsIgnoreCase(r.getReasonCode()) && r.getValues() != null)
+				.flatMap(r -> r.getValues().stream()).map(l -> StringUtils.lowerCase(l, Locale.ROOT))
+				.collect(Collectors.toSet());
+		sku.getLocations().stream().map(l -> StringUtils.lowerCase(l, Locale.ROOT)).filter(l -> !restricted.contains(l))
+				.forEach(l -> sizes.computeIfAbsent(l, k -> new HashMap<>()).put(sku.getName(), size));
+	}
 }
@@ -3,9 +3,12 @@
  */
 package org.ligoj.app.plugin.vmazure;
 
-import java.io.Serializable;
+import java.io.IOException;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -14,22 +17,31 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 /**
- * Azure VM size.
+ * Azure VM size. Stored in the "azure-sizes" cache with the Hazelcast field serialization instead of the Java one.
  */
 @Getter
 @Setter
 @JsonIgnoreProperties(ignoreUnknown = true)
 @RequiredArgsConstructor
 @NoArgsConstructor
-public class VmSize implements Serializable {
-
-	/**
-	 * SID
-	 */
-	private static final long serialVersionUID = 1L;
+public class VmSize implements DataSerializable {
 
 	@NonNull
 	private String name;
 	private int numberOfCores;
 	private int memoryInMB;
+
+	@Override
+	public void writeData(final ObjectDataOutput out) throws IOException {
+		out.writeString(name);
+		out.writeInt(numberOfCores);
+		out.writeInt(memoryInMB);
+	}
+
+	@Override
+	public void readData(final ObjectDataInput in) throws IOException {
+		name = in.readString();
+		numberOfCores = in.readInt();
+		memoryInMB = in.readInt();
+	}
 }
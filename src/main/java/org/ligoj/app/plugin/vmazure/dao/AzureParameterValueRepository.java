@@ -0,0 +1,48 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure.dao;
+
+import java.util.List;
+
+import org.ligoj.app.model.ParameterValue;
+import org.ligoj.bootstrap.core.dao.RestRepository;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * {@link ParameterValue} repository dedicated to the Azure subscriptions.
+ */
+public interface AzureParameterValueRepository extends RestRepository<ParameterValue, Integer> {
+
+	/**
+	 * Return the subscriptions having the given parameter set at subscription level.
+	 *
+	 * @param parameter The parameter identifier.
+	 * @return The subscription identifiers. May be empty.
+	 */
+	@Query("SELECT v.subscription.id FROM ParameterValue v WHERE v.parameter.id = ?1 AND v.subscription IS NOT NULL")
+	List<Integer> findAllSubscriptions(String parameter);
+
+	/**
+	 * Return all parameter values of the subscriptions having the given parameter set at subscription level, with a
+	 * single query. The values set at the node level of these subscriptions, up to the tool node, are included.
+	 *
+	 * @param parameter The parameter identifier.
+	 * @return The subscription identifier and the {@link ParameterValue} of each value. May be empty.
+	 */
+	@Query("SELECT s.id, v FROM ParameterValue v, Subscription s LEFT JOIN s.node n1 LEFT JOIN n1.refined n2"
+			+ " LEFT JOIN n2.refined n3 WHERE EXISTS (SELECT 1 FROM ParameterValue p WHERE p.subscription = s"
+			+ " AND p.parameter.id = ?1) AND (v.subscription = s OR v.node = n1 OR v.node = n2 OR v.node = n3)")
+	List<Object[]> findAllSubscriptionParameters(String parameter);
+
+	/**
+	 * Return the subscriptions having the given parameter value set at subscription level.
+	 *
+	 * @param parameter The parameter identifier.
+	 * @param data      The parameter value. Case is insensitive.
+	 * @return The subscription identifiers. May be empty.
+	 */
+	@Query("SELECT v.subscription.id FROM ParameterValue v WHERE v.parameter.id = ?1 AND UPPER(v.data) = UPPER(?2)"
+			+ " AND v.subscription IS NOT NULL")
+	List<Integer> findAllSubscriptionsByData(String parameter, String data);
+}
@@ -12,7 +12,8 @@ define({
 	"error" : {
 		"azure-vm" : "VM invalide",
 		"azure-login" : "Authentication échouée",
-		"azure-admin" : "Accès administration échoué"
+		"azure-admin" : "Accès administration échoué",
+		"azure-unavailable" : "Azure est indisponible ou limite les requêtes, réessayer plus tard"
 	}
 
 });
@@ -14,7 +14,8 @@ define({
 		"error" : {
 			"azure-vm" : "Invalid VM",
 			"azure-login" : "Authentication failed",
-			"azure-admin" : "Administrator access failed"
+			"azure-admin" : "Administrator access failed",
+			"azure-unavailable" : "Azure is unavailable or throttling the requests, try again later"
 		}
 	},
 	"fr" : true
@@ -0,0 +1,31 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link AzureInventoryRefresher}
+ */
+class AzureInventoryRefresherTest {
+
+	@Test
+	void getDelay() {
+		// New resource group
+		Assertions.assertEquals(45_000L, AzureInventoryRefresher.getDelay(null, false, 5_000, 45_000, 300_000));
+
+		// Busy or changed VM
+		Assertions.assertEquals(5_000L, AzureInventoryRefresher.getDelay(null, true, 5_000, 45_000, 300_000));
+		Assertions.assertEquals(5_000L, AzureInventoryRefresher.getDelay(180_000L, true, 5_000, 45_000, 300_000));
+
+		// Back to stable
+		Assertions.assertEquals(45_000L, AzureInventoryRefresher.getDelay(5_000L, false, 5_000, 45_000, 300_000));
+
+		// Exponential backoff up to the maximal delay
+		Assertions.assertEquals(90_000L, AzureInventoryRefresher.getDelay(45_000L, false, 5_000, 45_000, 300_000));
+		Assertions.assertEquals(300_000L, AzureInventoryRefresher.getDelay(180_000L, false, 5_000, 45_000, 300_000));
+		Assertions.assertEquals(300_000L, AzureInventoryRefresher.getDelay(300_000L, false, 5_000, 45_000, 300_000));
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link AzureNearCache}
+ */
+class AzureNearCacheTest {
+
+	@Test
+	void get() {
+		final var cache = new AzureNearCache<String, String>("test", 60, 10);
+		final var loads = new AtomicInteger();
+		Assertions.assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+		Assertions.assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+		Assertions.assertEquals(1, loads.get());
+		Assertions.assertEquals(1L, cache.getMetrics().get("test-near-hits"));
+		Assertions.assertEquals(1L, cache.getMetrics().get("test-near-misses"));
+		Assertions.assertEquals(1L, cache.getMetrics().get("test-near-size"));
+
+		// Local invalidation
+		cache.remove("k");
+		Assertions.assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()));
+		cache.clear();
+		Assertions.assertEquals(0L, cache.getMetrics().get("test-near-size"));
+	}
+
+	@Test
+	void getExpired() {
+		final var cache = new AzureNearCache<String, String>("test", 0, 10);
+		Assertions.assertEquals("v1", cache.get("k", () -> "v1"));
+		Assertions.assertEquals("v2", cache.get("k", () -> "v2"));
+	}
+
+	@Test
+	void getFull() {
+		final var cache = new AzureNearCache<String, String>("test", 60, 2);
+		cache.get("k1", () -> "v1");
+		cache.get("k2", () -> "v2");
+		cache.get("k1", () -> "v1");
+		cache.get("k3", () -> "v3");
+		Assertions.assertEquals(2L, cache.getMetrics().get("test-near-size"));
+
+		// The least recently used entry is dropped
+		Assertions.assertEquals("v1", cache.get("k1", () -> "other"));
+		Assertions.assertEquals("v3", cache.get("k3", () -> "other"));
+		Assertions.assertEquals("new", cache.get("k2", () -> "new"));
+	}
+
+	@Test
+	void getFailed() {
+		final var cache = new AzureNearCache<String, String>("test", 60, 2);
+		Assertions.assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+			throw new IllegalStateException();
+		}));
+		Assertions.assertEquals("v", cache.get("k", () -> "v"));
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.resource.system.configuration.ConfigurationResource;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test class of {@link AzureOperationTracker}
+ */
+class AzureOperationTrackerTest {
+
+	private AzureOperationTracker tracker;
+
+	private final AzureScheduler scheduler = new AzureScheduler();
+
+	@BeforeEach
+	void prepare() {
+		tracker = new AzureOperationTracker();
+		tracker.scheduler = scheduler;
+		tracker.objectMapper = new ObjectMapper();
+		tracker.configuration = Mockito.mock(ConfigurationResource.class);
+		Mockito.when(tracker.configuration.get(AzureOperationTracker.CONF_POLL_DELAY,
+				AzureOperationTracker.DEFAULT_POLL_DELAY)).thenReturn(0);
+		Mockito.when(tracker.configuration.get(AzureOperationTracker.CONF_TIMEOUT,
+				AzureOperationTracker.DEFAULT_TIMEOUT)).thenReturn(10);
+	}
+
+	@AfterEach
+	void shutdown() {
+		scheduler.shutdown();
+	}
+
+	private AzureCurlRequest newResponse(final int status, final String header, final String url,
+			final String content) {
+		final var response = new AzureCurlRequest("GET", "https://localhost/any", null, null);
+		response.setResponseStatus(status);
+		response.setResponse(content);
+		if (header != null) {
+			response.getResponseHeaders().put(header, url);
+			response.getResponseHeaders().put("Retry-After", "0");
+		}
+		return response;
+	}
+
+	private Function<String, AzureCurlRequest> poller(final AzureCurlRequest... responses) {
+		final Iterator<AzureCurlRequest> iterator = List.of(responses).iterator();
+		return url -> {
+			Assertions.assertEquals("https://localhost/operation", url);
+			return iterator.next();
+		};
+	}
+
+	@Test
+	void trackSynchronous() throws Exception {
+		Assertions.assertEquals(AzureOperationTracker.SUCCEEDED,
+				tracker.track(newResponse(200, null, null, ""), poller()).get(1, TimeUnit.SECONDS));
+		Assertions.assertEquals(AzureOperationTracker.FAILED,
+				tracker.track(newResponse(0, null, null, null), poller()).get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void trackAsyncOperation() throws Exception {
+		final var poller = poller(newResponse(200, null, null, "{\"status\":\"InProgress\"}"),
+				newResponse(503, null, null, null), newResponse(200, null, null, "{\"status\":\"succeeded\"}"));
+		Assertions.assertEquals(AzureOperationTracker.SUCCEEDED,
+				tracker.track(newResponse(202, "Azure-AsyncOperation", "https://localhost/operation", null), poller)
+						.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void trackAsyncOperationFailed() throws Exception {
+		final var poller = poller(newResponse(200, null, null, "{\"status\":\"Failed\"}"));
+		Assertions.assertEquals(AzureOperationTracker.FAILED,
+				tracker.track(newResponse(202, "Azure-AsyncOperation", "https://localhost/operation", null), poller)
+						.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void trackLocation() throws Exception {
+		final var poller = poller(newResponse(202, null, null, null), newResponse(204, null, null, null));
+		Assertions.assertEquals(AzureOperationTracker.SUCCEEDED,
+				tracker.track(newResponse(202, "Location", "https://localhost/operation", null), poller)
+						.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void trackTimeout() throws Exception {
+		Mockito.when(tracker.configuration.get(AzureOperationTracker.CONF_TIMEOUT,
+				AzureOperationTracker.DEFAULT_TIMEOUT)).thenReturn(0);
+		final var poller = poller(newResponse(202, null, null, null));
+		Assertions.assertEquals(AzureOperationTracker.TIMED_OUT,
+				tracker.track(newResponse(202, "Location", "https://localhost/operation", null), poller)
+						.get(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link AzurePages}
+ */
+class AzurePagesTest {
+
+	private static final String PAGE1 = "{\"value\":[],\"nextLink\":\"https://management.azure.com:443/page2\"}";
+
+	private static final String PAGE2 = "{\"value\":[]}";
+
+	@Test
+	void next() {
+		final var pages = Map.of("https://management.azure.com/page1", PAGE1,
+				"https://management.azure.com:443/page2", PAGE2);
+		try (var iterator = new AzurePages(pages::get, "https://management.azure.com/page1")) {
+			final var result = new ArrayList<String>();
+			iterator.forEachRemaining(result::add);
+			Assertions.assertEquals(2, result.size());
+			Assertions.assertFalse(iterator.isTruncated());
+		}
+	}
+
+	@Test
+	void nextFirstPageFailed() {
+		try (var iterator = new AzurePages(u -> null, "https://management.azure.com/page1")) {
+			Assertions.assertFalse(iterator.hasNext());
+			Assertions.assertFalse(iterator.isTruncated());
+		}
+	}
+
+	@Test
+	void nextTruncated() {
+		try (var iterator = new AzurePages(u -> u.endsWith("page1") ? PAGE1 : null,
+				"https://management.azure.com/page1")) {
+			Assertions.assertEquals(PAGE1, iterator.next());
+			Assertions.assertFalse(iterator.hasNext());
+			Assertions.assertTrue(iterator.isTruncated());
+		}
+	}
+
+	@Test
+	void nextFirstPageUnavailable() {
+		try (var iterator = new AzurePages(u -> {
+			throw new IllegalStateException("azure-unavailable");
+		}, "https://management.azure.com/page1")) {
+			Assertions.assertFalse(iterator.hasNext());
+			Assertions.assertFalse(iterator.isTruncated());
+		}
+	}
+
+	@Test
+	void nextUnavailable() {
+		try (var iterator = new AzurePages(u -> {
+			if (u.endsWith("page1")) {
+				return PAGE1;
+			}
+			throw new IllegalStateException("azure-unavailable");
+		}, "https://management.azure.com/page1")) {
+			Assertions.assertEquals(PAGE1, iterator.next());
+			Assertions.assertFalse(iterator.hasNext());
+			Assertions.assertTrue(iterator.isTruncated());
+		}
+	}
+
+	@Test
+	void nextOtherOrigin() {
+		final var fetched = new ArrayList<String>();
+		try (var iterator = new AzurePages(u -> {
+			fetched.add(u);
+			return PAGE1;
+		}, "https://other.azure.com/page1")) {
+			iterator.next();
+			Assertions.assertFalse(iterator.hasNext());
+			Assertions.assertTrue(iterator.isTruncated());
+		}
+
+		// The token is never sent to the other origin
+		Assertions.assertEquals(1, fetched.size());
+	}
+
+	@Test
+	void nextBackground() {
+		final var flags = new ArrayList<Boolean>();
+		AzureRateLimiter.background(() -> {
+			try (var iterator = new AzurePages(u -> {
+				flags.add(AzureRateLimiter.isBackground());
+				return u.endsWith("page1") ? PAGE1 : PAGE2;
+			}, "https://management.azure.com/page1")) {
+				iterator.forEachRemaining(p -> {
+					// Consume all pages
+				});
+			}
+			return null;
+		});
+
+		// The prefetched page is fetched as a background call too
+		Assertions.assertEquals(2, flags.size());
+		Assertions.assertTrue(flags.get(1));
+	}
+}
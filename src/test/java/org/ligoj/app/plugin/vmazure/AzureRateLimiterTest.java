@@ -0,0 +1,65 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link AzureRateLimiter}
+ */
+class AzureRateLimiterTest {
+
+	private void acquire(final AzureRateLimiter limiter, final int calls) {
+		for (var i = 0; i < calls; i++) {
+			limiter.acquire("sub", false);
+		}
+	}
+
+	private void acquireInBackground(final AzureRateLimiter limiter, final int calls) {
+		AzureRateLimiter.background(() -> {
+			acquire(limiter, calls);
+			return null;
+		});
+	}
+
+	@Test
+	void acquireUnknownQuota() {
+		final var limiter = new AzureRateLimiter(100, 10);
+		acquireInBackground(limiter, 5);
+		Assertions.assertEquals(0L, limiter.getMetrics().get("rate-limit-waits"));
+	}
+
+	@Test
+	void acquireEnoughQuota() {
+		final var limiter = new AzureRateLimiter(100, 10);
+		limiter.update("sub", Map.of(AzureRateLimiter.HEADER_REMAINING_READS, "101"));
+		acquireInBackground(limiter, 5);
+		Assertions.assertEquals(0L, limiter.getMetrics().get("rate-limit-waits"));
+	}
+
+	@Test
+	void acquireLowQuota() {
+		final var limiter = new AzureRateLimiter(100, 20);
+		limiter.update("sub", Map.of(AzureRateLimiter.HEADER_REMAINING_READS, "50"));
+
+		// Interactive calls are not paced
+		acquire(limiter, 3);
+		Assertions.assertEquals(0L, limiter.getMetrics().get("rate-limit-waits"));
+
+		// Background calls are paced, the first one uses the available token
+		acquireInBackground(limiter, 3);
+		Assertions.assertEquals(2L, limiter.getMetrics().get("rate-limit-waits"));
+		Assertions.assertTrue(limiter.getMetrics().get("rate-limit-wait-ms") >= 50);
+
+		// Writes quota is not concerned
+		AzureRateLimiter.background(() -> {
+			limiter.acquire("sub", true);
+			return null;
+		});
+		Assertions.assertEquals(2L, limiter.getMetrics().get("rate-limit-waits"));
+	}
+}
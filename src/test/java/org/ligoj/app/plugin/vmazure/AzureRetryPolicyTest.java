@@ -0,0 +1,110 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+
+/**
+ * Test class of {@link AzureRetryPolicy}
+ */
+class AzureRetryPolicyTest {
+
+	@Test
+	void isRetryable() {
+		final var policy = new AzureRetryPolicy();
+		Assertions.assertTrue(policy.isRetryable("GET", 429));
+		Assertions.assertTrue(policy.isRetryable("GET", 500));
+		Assertions.assertTrue(policy.isRetryable("GET", 503));
+		Assertions.assertTrue(policy.isRetryable("PUT", 429));
+		Assertions.assertTrue(policy.isRetryable("DELETE", 502));
+		Assertions.assertFalse(policy.isRetryable("POST", 503));
+		Assertions.assertFalse(policy.isRetryable("POST", 429));
+		Assertions.assertFalse(policy.isRetryable("POST", 500));
+		Assertions.assertFalse(policy.isRetryable("GET", 404));
+		Assertions.assertFalse(policy.isRetryable("GET", 200));
+		Assertions.assertFalse(policy.isRetryable("GET", 0));
+	}
+
+	@Test
+	void getDelay() {
+		final var policy = new AzureRetryPolicy(3, 100, 60);
+
+		// Exponential backoff with jitter
+		for (var i = 0; i < 20; i++) {
+			final var first = policy.getDelay(1, null);
+			Assertions.assertTrue(first >= 50 && first <= 100, "delay " + first);
+			final var third = policy.getDelay(3, "invalid");
+			Assertions.assertTrue(third >= 200 && third <= 400, "delay " + third);
+		}
+
+		// Retry-After is honored
+		final var retryAfter = policy.getDelay(1, "2");
+		Assertions.assertTrue(retryAfter >= 2000 && retryAfter <= 2100, "delay " + retryAfter);
+
+		// Capped backoff
+		Assertions.assertTrue(policy.getDelay(30, null) <= 30_000);
+	}
+
+	@Test
+	void getRetryAfter() {
+		final var now = Instant.parse("2026-10-17T10:00:00Z").toEpochMilli();
+		Assertions.assertEquals(-1, AzureRetryPolicy.getRetryAfter(null, now));
+		Assertions.assertEquals(-1, AzureRetryPolicy.getRetryAfter("invalid", now));
+		Assertions.assertEquals(2000, AzureRetryPolicy.getRetryAfter("2", now));
+
+		// HTTP date form
+		Assertions.assertEquals(5000, AzureRetryPolicy.getRetryAfter("Sat, 17 Oct 2026 10:00:05 GMT", now));
+		Assertions.assertEquals(0, AzureRetryPolicy.getRetryAfter("Sat, 17 Oct 2026 09:59:00 GMT", now));
+	}
+
+	@Test
+	void getDelayHttpDate() {
+		final var policy = new AzureRetryPolicy(3, 100, 60);
+		final var date = DateTimeFormatter.RFC_1123_DATE_TIME
+				.format(Instant.now().plusSeconds(10).atZone(ZoneOffset.UTC));
+		final var retryAfter = policy.getDelay(1, date);
+		Assertions.assertTrue(retryAfter >= 8000 && retryAfter <= 10_100, "delay " + retryAfter);
+	}
+
+	@Test
+	void await() {
+		final var policy = new AzureRetryPolicy(1, 1, 60);
+		policy.await(1, policy.newDeadline(), "0", 429);
+		Assertions.assertEquals(1L, policy.getMetrics().get("retry-attempts"));
+
+		// All attempts are consumed
+		Assertions.assertEquals("azure-unavailable", Assertions.assertThrows(BusinessException.class,
+				() -> policy.await(2, policy.newDeadline(), "0", 429)).getMessage());
+		Assertions.assertEquals(1L, policy.getMetrics().get("retry-exhausted"));
+	}
+
+	@Test
+	void awaitDeadline() {
+		final var policy = new AzureRetryPolicy(5, 1, 1);
+
+		// Retry-After does not fit in the deadline
+		Assertions.assertThrows(BusinessException.class, () -> policy.await(1, policy.newDeadline(), "10", 503));
+		Assertions.assertEquals(0L, policy.getMetrics().get("retry-attempts"));
+	}
+
+	@Test
+	void newDeadline() {
+		final var policy = new AzureRetryPolicy(3, 1, 60, 5);
+		final var now = System.currentTimeMillis();
+
+		// Interactive request
+		final var interactive = policy.newDeadline() - now;
+		Assertions.assertTrue(interactive >= 5000 && interactive < 60000);
+
+		// Background request
+		final long background = AzureRateLimiter.background(() -> policy.newDeadline()) - now;
+		Assertions.assertTrue(background >= 60000);
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link AzureScheduler}
+ */
+class AzureSchedulerTest {
+
+	private final AzureScheduler scheduler = new AzureScheduler();
+
+	@AfterEach
+	void shutdown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void schedule() throws Exception {
+		final var virtual = new CompletableFuture<Boolean>();
+		scheduler.schedule(() -> virtual.complete(Thread.currentThread().isVirtual()), -1, TimeUnit.MILLISECONDS);
+		Assertions.assertTrue(virtual.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void scheduleLongTask() throws Exception {
+		// A blocked task does not delay the next one
+		final var release = new CountDownLatch(1);
+		final var next = new CompletableFuture<Void>();
+		scheduler.schedule(() -> {
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, 0, TimeUnit.MILLISECONDS);
+		scheduler.schedule(() -> next.complete(null), 0, TimeUnit.MILLISECONDS);
+		next.get(5, TimeUnit.SECONDS);
+		release.countDown();
+	}
+
+	@Test
+	void scheduleWithFixedDelay() throws Exception {
+		final var runs = new CountDownLatch(2);
+		scheduler.scheduleWithFixedDelay(runs::countDown, 1, TimeUnit.MILLISECONDS);
+		Assertions.assertTrue(runs.await(5, TimeUnit.SECONDS));
+	}
+}
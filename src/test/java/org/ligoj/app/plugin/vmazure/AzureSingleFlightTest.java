@@ -0,0 +1,81 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link AzureSingleFlight}
+ */
+class AzureSingleFlightTest {
+
+	@Test
+	void execute() {
+		final var flight = new AzureSingleFlight<String, String>();
+		Assertions.assertEquals("value", flight.execute("key", () -> "value"));
+		Assertions.assertEquals("value2", flight.execute("key", () -> "value2"));
+		Assertions.assertEquals(2, flight.getHits());
+		Assertions.assertEquals(0, flight.getMerges());
+	}
+
+	@Test
+	void executeFailed() {
+		final var flight = new AzureSingleFlight<String, String>();
+		Assertions.assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+			throw new IllegalStateException();
+		}));
+
+		// Failure is not kept
+		Assertions.assertEquals("value", flight.execute("key", () -> "value"));
+	}
+
+	@Test
+	void executeConcurrent() throws Exception {
+		final var flight = new AzureSingleFlight<String, String>();
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var loads = new AtomicInteger();
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var leader = executor.submit(() -> flight.execute("key", () -> {
+				loads.incrementAndGet();
+				started.countDown();
+				await(release);
+				return "value";
+			}));
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+			final var follower = executor.submit(() -> flight.execute("key", () -> {
+				loads.incrementAndGet();
+				return "other";
+			}));
+
+			// Wait for the follower to be merged before releasing the leader
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+				while (flight.getMerges() == 0) {
+					Thread.onSpinWait();
+				}
+			});
+			release.countDown();
+			Assertions.assertEquals("value", leader.get());
+			Assertions.assertEquals("value", follower.get());
+		}
+		Assertions.assertEquals(1, loads.get());
+		Assertions.assertEquals(2, flight.getHits());
+		Assertions.assertEquals(1, flight.getMerges());
+	}
+
+	private void await(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
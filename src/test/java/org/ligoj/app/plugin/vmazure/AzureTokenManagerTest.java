@@ -0,0 +1,166 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.resource.system.configuration.ConfigurationResource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+/**
+ * Test class of {@link AzureTokenManager}
+ */
+class AzureTokenManagerTest {
+
+	private AzureTokenManager manager;
+
+	private final ConcurrentMapCache shared = new ConcurrentMapCache("azure-tokens");
+
+	private final AzureScheduler scheduler = new AzureScheduler();
+
+	@BeforeEach
+	void prepare() {
+		manager = newManager();
+	}
+
+	private AzureTokenManager newManager() {
+		final var manager = new AzureTokenManager();
+		manager.scheduler = scheduler;
+		manager.configuration = Mockito.mock(ConfigurationResource.class);
+		Mockito.when(manager.configuration.get(AzureTokenManager.CONF_REFRESH_LEAD,
+				AzureTokenManager.DEFAULT_REFRESH_LEAD)).thenReturn(300);
+		manager.cacheManager = Mockito.mock(CacheManager.class);
+		Mockito.when(manager.cacheManager.getCache("azure-tokens")).thenReturn(shared);
+		return manager;
+	}
+
+	@AfterEach
+	void shutdown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void getToken() {
+		final var loads = new AtomicInteger();
+		final var expiresOn = System.currentTimeMillis() + 3600_000L;
+		Assertions.assertEquals("token", manager.getToken("key", () -> {
+			loads.incrementAndGet();
+			return new AzureToken("token", expiresOn);
+		}, 0, IllegalStateException::new));
+
+		// Token is reused
+		Assertions.assertEquals("token", manager.getToken("key", () -> new AzureToken("other", expiresOn), 0,
+				IllegalStateException::new));
+		Assertions.assertEquals(1, loads.get());
+	}
+
+	@Test
+	void getTokenExpiring() {
+		final var now = System.currentTimeMillis();
+		Assertions.assertEquals("old", manager.getToken("key", () -> new AzureToken("old", now - 3590_000L, now + 10_000L),
+				0, IllegalStateException::new));
+
+		// Token expiring within the safety margin is not served
+		Assertions.assertEquals("token", manager.getToken("key",
+				() -> new AzureToken("token", System.currentTimeMillis() + 3600_000L), 0, IllegalStateException::new));
+	}
+
+	@Test
+	void getTokenShared() {
+		final var other = newManager();
+		Mockito.when(manager.configuration.get(AzureTokenManager.CONF_SHARED, false)).thenReturn(true);
+		Mockito.when(other.configuration.get(AzureTokenManager.CONF_SHARED, false)).thenReturn(true);
+		final var expiresOn = System.currentTimeMillis() + 3600_000L;
+		Assertions.assertEquals("token",
+				manager.getToken("key", () -> new AzureToken("token", expiresOn), 0, IllegalStateException::new));
+		Assertions.assertEquals(expiresOn, ((AzureToken) shared.get("key").get()).getExpiresOn());
+
+		// The other node reuses the shared token without any acquisition
+		Assertions.assertEquals("token", other.getToken("key", () -> null, 0, IllegalStateException::new));
+	}
+
+	@Test
+	void getTokenSharedExpiring() {
+		Mockito.when(manager.configuration.get(AzureTokenManager.CONF_SHARED, false)).thenReturn(true);
+
+		// Shared token within the refresh lead is not reused
+		final var now = System.currentTimeMillis();
+		shared.put("key", new AzureToken("old", now - 3540_000L, now + 60_000L));
+		Assertions.assertEquals("token", manager.getToken("key",
+				() -> new AzureToken("token", System.currentTimeMillis() + 3600_000L), 0, IllegalStateException::new));
+		Assertions.assertEquals("token", ((AzureToken) shared.get("key").get()).getAccessToken());
+	}
+
+	@Test
+	void getTokenNotShared() {
+		final var expiresOn = System.currentTimeMillis() + 3600_000L;
+		Assertions.assertEquals("token",
+				manager.getToken("key", () -> new AzureToken("token", expiresOn), 0, IllegalStateException::new));
+		Assertions.assertNull(shared.get("key"));
+	}
+
+	@Test
+	void getTokenRetries() {
+		final var loads = new AtomicInteger();
+		Assertions.assertThrows(IllegalStateException.class, () -> manager.getToken("key", () -> {
+			loads.incrementAndGet();
+			return null;
+		}, 2, IllegalStateException::new));
+		Assertions.assertEquals(3, loads.get());
+	}
+
+	@Test
+	void getTokenRefreshAhead() {
+		manager.scheduler = Mockito.mock(AzureScheduler.class);
+		final var loads = new AtomicInteger();
+
+		// First token expires within the refresh lead, so is immediately refreshed in background
+		final var now = System.currentTimeMillis();
+		final var token = manager.getToken("key",
+				() -> loads.getAndIncrement() == 0 ? new AzureToken("token1", now - 3540_000L, now + 60_000L)
+						: new AzureToken("token2", System.currentTimeMillis() + 3600_000L),
+				0, IllegalStateException::new);
+		Assertions.assertEquals("token1", token);
+		final var delay = ArgumentCaptor.forClass(Long.class);
+		final var task = ArgumentCaptor.forClass(Runnable.class);
+		Mockito.verify(manager.scheduler).schedule(task.capture(), delay.capture(), Mockito.eq(TimeUnit.MILLISECONDS));
+		Assertions.assertTrue(delay.getValue() <= 0);
+
+		// The refreshed token is served without any new acquisition from the caller
+		task.getValue().run();
+		Assertions.assertEquals("token2", manager.getToken("key", () -> null, 0, IllegalStateException::new));
+		Assertions.assertEquals(2, loads.get());
+	}
+
+	@Test
+	void getTokenShortLifetime() {
+		manager.scheduler = Mockito.mock(AzureScheduler.class);
+		final var loads = new AtomicInteger();
+
+		// Lifetime shorter than the refresh lead, refreshed at the half of its lifetime, not immediately
+		Assertions.assertEquals("token", manager.getToken("key", () -> {
+			loads.incrementAndGet();
+			return new AzureToken("token", System.currentTimeMillis() + 60_000L);
+		}, 0, IllegalStateException::new));
+		final var delay = ArgumentCaptor.forClass(Long.class);
+		Mockito.verify(manager.scheduler).schedule(Mockito.any(), delay.capture(), Mockito.eq(TimeUnit.MILLISECONDS));
+		Assertions.assertTrue(delay.getValue() > 25_000L && delay.getValue() <= 30_000L);
+		Assertions.assertEquals(1, loads.get());
+	}
+
+	@Test
+	void getRefreshLead() {
+		final var now = System.currentTimeMillis();
+		Assertions.assertEquals(300_000L, manager.getRefreshLead(new AzureToken("token", now, now + 3600_000L)));
+		Assertions.assertEquals(30_000L, manager.getRefreshLead(new AzureToken("token", now, now + 60_000L)));
+	}
+}
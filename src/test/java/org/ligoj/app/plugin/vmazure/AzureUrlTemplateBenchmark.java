@@ -0,0 +1,76 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark of the URL building: the former chained {@link String#replace(CharSequence, CharSequence)} calls against
+ * the parsed {@link AzureUrlTemplate}. Not run by the tests, run it from the test classpath with the {@link #main}
+ * method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AzureUrlTemplateBenchmark {
+
+	private static final String BASE_URL = "https://management.azure.com";
+
+	private final AzureUrlTemplate template = AzureUrlTemplate.compile(VmAzurePluginResource.VM_URL);
+
+	private final Map<String, String> variables = Map.of("apiVersion", "2017-03-30", "resourceGroup", "group1",
+			"subscriptionId", "00000000-0000-0000-0000-000000000000", "vm", "test1");
+
+	/**
+	 * The former URL building.
+	 *
+	 * @return The built URL.
+	 */
+	@Benchmark
+	public String replace() {
+		return BASE_URL + "/" + VmAzurePluginResource.VM_URL.replace("{apiVersion}", variables.get("apiVersion"))
+				.replace("{resourceGroup}", variables.get("resourceGroup"))
+				.replace("{subscriptionId}", variables.get("subscriptionId"))
+				.replace("{vm}", variables.get("vm"));
+	}
+
+	/**
+	 * The URL building from the parsed template.
+	 *
+	 * @return The built URL.
+	 */
+	@Benchmark
+	public String render() {
+		final var url = new StringBuilder(BASE_URL.length() + template.getLength() + 128).append(BASE_URL)
+				.append('/');
+		return template.render(url, variables::get).toString();
+	}
+
+	/**
+	 * Run this benchmark.
+	 *
+	 * @param args Ignored.
+	 * @throws RunnerException When the benchmark cannot be run.
+	 */
+	public static void main(final String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(AzureUrlTemplateBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link AzureUrlTemplate}
+ */
+class AzureUrlTemplateTest {
+
+	@Test
+	void render() {
+		final var template = AzureUrlTemplate.compile(VmAzurePluginResource.OPERATION_VM);
+		final var values = Map.of("subscriptionId", "sub", "resourceGroup", "group", "vm", "vm1", "apiVersion", "v1");
+		Assertions.assertEquals(
+				"http://host/subscriptions/sub/resourceGroups/group/providers/Microsoft.Compute/virtualMachines/vm1/{operation}?api-version=v1",
+				template.render(new StringBuilder("http://host/"), values::get).toString());
+	}
+
+	@Test
+	void renderNoVariable() {
+		final var template = AzureUrlTemplate.compile("batch?api-version=2020-06-01");
+		Assertions.assertEquals(28, template.getLength());
+		Assertions.assertEquals("batch?api-version=2020-06-01",
+				template.render(new StringBuilder(), n -> "-").toString());
+	}
+
+	@Test
+	void renderUnclosed() {
+		final var template = AzureUrlTemplate.compile("{a}/b{c");
+		Assertions.assertEquals("1/b{c", template.render(new StringBuilder(), n -> "1").toString());
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.vm.model.VmStatus;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+/**
+ * Test class of {@link AzureVmStatusStream}
+ */
+class AzureVmStatusStreamTest {
+
+	private AzureVmStatusStream stream;
+
+	private SseEventSink sink;
+
+	private OutboundSseEvent.Builder builder;
+
+	private Sse sse;
+
+	@BeforeEach
+	void prepareStream() {
+		stream = new AzureVmStatusStream();
+		stream.objectMapper = new ObjectMapper();
+		stream.scheduler = Mockito.mock(AzureScheduler.class);
+		sink = Mockito.mock(SseEventSink.class);
+		Mockito.doReturn(CompletableFuture.completedFuture(null)).when(sink).send(ArgumentMatchers.any());
+		builder = Mockito.mock(OutboundSseEvent.Builder.class, Mockito.RETURNS_SELF);
+		Mockito.doReturn(Mockito.mock(OutboundSseEvent.class)).when(builder).build();
+		sse = Mockito.mock(Sse.class);
+		Mockito.doReturn(builder).when(sse).newEventBuilder();
+		stream.register(sink, sse, Map.of(1, getParameters()), Map.of());
+	}
+
+	private Map<String, String> getParameters() {
+		return Map.of(VmAzurePluginResource.PARAMETER_VM, "test1",
+				AbstractAzureToolPluginResource.PARAMETER_RESOURCE_GROUP, "group1",
+				AbstractAzureToolPluginResource.PARAMETER_SUBSCRIPTION, "az-sub");
+	}
+
+	@Test
+	void register() {
+		final var sink2 = Mockito.mock(SseEventSink.class);
+		Mockito.doReturn(CompletableFuture.completedFuture(null)).when(sink2).send(ArgumentMatchers.any());
+		final var state = newEvent(2, "test1", VmStatus.POWERED_OFF, false).getState();
+
+		// The known state is sent on registration
+		stream.register(sink2, sse, Map.of(2, getParameters(), 3, getParameters()), Map.of(2, state));
+		Mockito.verify(builder).data("{\"status\":\"POWERED_OFF\",\"busy\":false,\"deployed\":true,\"subscription\":2}");
+		Mockito.verify(sink2, Mockito.times(1)).send(ArgumentMatchers.any());
+
+		// Same state, nothing is sent
+		stream.onVmEvent(newEvent(2, "test1", VmStatus.POWERED_OFF, false));
+		Mockito.verify(sink2, Mockito.times(1)).send(ArgumentMatchers.any());
+	}
+
+	@Test
+	void heartbeat() {
+		stream.heartbeat();
+		Mockito.verify(builder).comment("heartbeat");
+		Mockito.verify(sink).send(ArgumentMatchers.any());
+		Assertions.assertEquals(1, stream.getSize());
+	}
+
+	@Test
+	void heartbeatClosed() {
+		Mockito.doReturn(true).when(sink).isClosed();
+		stream.heartbeat();
+		Assertions.assertEquals(0, stream.getSize());
+		Mockito.verify(sink, Mockito.never()).send(ArgumentMatchers.any());
+	}
+
+	@Test
+	void heartbeatFailed() {
+		Mockito.doReturn(CompletableFuture.failedFuture(new IllegalStateException("closed"))).when(sink)
+				.send(ArgumentMatchers.any());
+		stream.heartbeat();
+		Assertions.assertEquals(0, stream.getSize());
+	}
+
+	@Test
+	void onVmEvent() {
+		// All fields are sent first
+		stream.onVmEvent(newEvent(null, "TEST1", VmStatus.POWERED_ON, false));
+		Mockito.verify(builder).data("{\"status\":\"POWERED_ON\",\"busy\":false,\"deployed\":true,\"subscription\":1}");
+
+		// Same state, nothing is sent
+		stream.onVmEvent(newEvent(1, "test1", VmStatus.POWERED_ON, false));
+		Mockito.verify(sink, Mockito.times(1)).send(ArgumentMatchers.any());
+
+		// Only the changed fields are sent
+		stream.onVmEvent(newEvent(1, "test1", VmStatus.POWERED_ON, true));
+		Mockito.verify(builder).data("{\"busy\":true,\"subscription\":1}");
+		Mockito.verify(sink, Mockito.times(2)).send(ArgumentMatchers.any());
+	}
+
+	@Test
+	void onVmEventOtherVm() {
+		stream.onVmEvent(newEvent(null, "test2", VmStatus.POWERED_ON, false));
+		stream.onVmEvent(newEvent(2, "test1", VmStatus.POWERED_ON, false));
+
+		// Operation without state
+		stream.onVmEvent(new AzureVmEvent(1, "az-sub", "group1", "test1", "start", "Succeeded"));
+		Mockito.verify(sink, Mockito.never()).send(ArgumentMatchers.any());
+	}
+
+	@Test
+	void onVmEventClosed() {
+		Assertions.assertEquals(1, stream.getSize());
+		Mockito.doReturn(true).when(sink).isClosed();
+		stream.onVmEvent(newEvent(null, "test1", VmStatus.POWERED_ON, false));
+		Assertions.assertEquals(0, stream.getSize());
+		Mockito.verify(sink, Mockito.never()).send(ArgumentMatchers.any());
+	}
+
+	@Test
+	void onVmEventFailed() {
+		Mockito.doReturn(CompletableFuture.failedFuture(new IllegalStateException("closed"))).when(sink)
+				.send(ArgumentMatchers.any());
+		stream.onVmEvent(newEvent(null, "test1", VmStatus.POWERED_ON, false));
+		Assertions.assertEquals(0, stream.getSize());
+	}
+
+	@Test
+	void sendConcurrent() throws Exception {
+		final var inFlight = new AtomicInteger();
+		final var overlaps = new AtomicInteger();
+		Mockito.doAnswer(i -> {
+			if (inFlight.incrementAndGet() > 1) {
+				overlaps.incrementAndGet();
+			}
+			Thread.yield();
+			inFlight.decrementAndGet();
+			return CompletableFuture.completedFuture(null);
+		}).when(sink).send(ArgumentMatchers.any());
+
+		// The heartbeats and the events of the same stream are sent one at a time
+		final var executor = Executors.newFixedThreadPool(2);
+		try {
+			final var heartbeats = executor.submit(() -> IntStream.range(0, 200).forEach(i -> stream.heartbeat()));
+			final var events = executor.submit(() -> IntStream.range(0, 200)
+					.forEach(i -> stream.onVmEvent(newEvent(1, "test1", VmStatus.POWERED_ON, i % 2 == 0))));
+			heartbeats.get(10, TimeUnit.SECONDS);
+			events.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+		Assertions.assertEquals(0, overlaps.get());
+		Mockito.verify(sink, Mockito.times(400)).send(ArgumentMatchers.any());
+	}
+
+	private AzureVmEvent newEvent(final Integer subscription, final String vm, final VmStatus status,
+			final boolean busy) {
+		final var state = new AzureVmState();
+		state.setStatus(status);
+		state.setBusy(busy);
+		state.setDeployed(true);
+		return new AzureVmEvent(subscription, "AZ-SUB", "GROUP1", vm, null, null, state);
+	}
+}
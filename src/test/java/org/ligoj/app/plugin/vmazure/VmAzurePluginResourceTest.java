@@ -4,20 +4,37 @@
 package org.ligoj.app.plugin.vmazure;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.hc.core5.http.HttpStatus;
@@ -56,6 +73,10 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import com.microsoft.aad.adal4j.AuthenticationContext;
 import com.microsoft.aad.adal4j.AuthenticationResult;
 import com.microsoft.aad.adal4j.ClientCredential;
@@ -70,6 +91,11 @@ import com.microsoft.aad.adal4j.ClientCredential;
 class VmAzurePluginResourceTest extends AbstractServerTest {
 	private static final String COMPUTE_URL = "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1/providers/Microsoft.Compute/virtualMachines";
 
+	static {
+		// The refreshes of the context are not scheduled, only the ones of the tests are executed
+		System.setProperty(AzureInventoryRefresher.CONF_SCHEDULED, "false");
+	}
+
 	@Autowired
 	private VmAzurePluginResource resource;
 
@@ -82,6 +108,18 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 	@Autowired
 	private ConfigurationResource configuration;
 
+	@Autowired
+	private AzureTokenManager tokenManager;
+
+	@Autowired
+	private AzureVmStatusStream statusStream;
+
+	@Autowired
+	private AzureCache azureCache;
+
+	@Autowired
+	private AzureEventResource eventResource;
+
 	protected int subscription;
 
 	@BeforeEach
@@ -98,10 +136,17 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 
 		configuration.put("service:vm:azure:management", "http://localhost:" + MOCK_PORT + "/");
 		configuration.put("service:vm:azure:authority", "https://localhost:" + MOCK_PORT + "/");
+		resource.reloadConfiguration();
 
 		// Invalidate azure cache
-		cacheManager.getCache("curl-tokens").clear();
+		tokenManager.clear();
 		cacheManager.getCache("azure-sizes").clear();
+		cacheManager.getCache("azure-sizes-errors").clear();
+		resource.clearNearCaches();
+		cacheManager.getCache("azure-vm-snapshot").clear();
+		cacheManager.getCache("azure-vm-snapshot-demand").clear();
+		cacheManager.getCache("azure-vm-topology").clear();
+		cacheManager.getCache("azure-tokens").clear();
 	}
 
 	/**
@@ -122,6 +167,28 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 		Assertions.assertEquals("2017-03-30", version);
 	}
 
+	@Test
+	void getVersionReload() throws Exception {
+		resource.getVersion(subscription);
+		configuration.put(AbstractAzureToolPluginResource.CONF_API_VERSION, "2020-01-01");
+
+		// The configuration snapshot is kept until the reload
+		Assertions.assertEquals("2017-03-30", resource.getVersion(subscription));
+		resource.reloadConfiguration();
+		Assertions.assertEquals("2020-01-01", resource.getVersion(subscription));
+		resource.reloadConfiguration();
+	}
+
+	@Test
+	void getProcessorReload() {
+		final var processor = resource.getProcessor();
+		Assertions.assertSame(processor, resource.getProcessor());
+
+		// The processor is built again with the updated configuration
+		resource.reloadConfiguration();
+		Assertions.assertNotSame(processor, resource.getProcessor());
+	}
+
 	@Test
 	void link() throws Exception {
 		prepareMockVm();
@@ -157,6 +224,226 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 		checkItem(vm);
 	}
 
+	@Test
+	void getVmDetailsNotModified() throws Exception {
+		prepareMockVm();
+
+		// Network resources are not modified since the first read
+		httpServer.stubFor(get(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1/providers/Microsoft.Network/networkInterfaces/test1637"))
+				.withHeader("If-None-Match", equalTo("W/\"0\""))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_NOT_MODIFIED)));
+		httpServer.stubFor(get(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1/providers/Microsoft.Network/publicIPAddresses/vm-0PublicIP"))
+				.withHeader("If-None-Match", equalTo("W/\"0\""))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_NOT_MODIFIED)));
+
+		final var parameters = pvResource.getNodeParameters("service:vm:azure:test");
+		parameters.put(VmAzurePluginResource.PARAMETER_VM, "test1");
+		final var resource = newResource();
+		checkItem(resource.getVmDetails(parameters));
+
+		// Second read of the expired topology reuses the parsed NIC and public IP
+		resource.self.evictVmTopology("00000000-0000-0000-0000-000000000000", "group1",
+				"99990000-1111-2222-3333-444455556666", "test1");
+		final var hits = resource.self.getMetrics().get("response-cache-hits");
+		final var loads = resource.self.getMetrics().get("response-cache-loads");
+		final var vm = resource.getVmDetails(parameters);
+		checkItem(vm);
+		Assertions.assertEquals("1.2.3.4", vm.getNetworks().get(1).getIp());
+		Assertions.assertEquals(hits + 2, resource.self.getMetrics().get("response-cache-hits"));
+		Assertions.assertEquals(loads, resource.self.getMetrics().get("response-cache-loads"));
+	}
+
+	@Test
+	void getVmDetailsFromTopology() throws Exception {
+		prepareMockVm();
+
+		// Only the instance view is requested once the topology is known
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/azure/vm-deallocated-instance-view.json").getInputStream(),
+						StandardCharsets.UTF_8))));
+
+		final var parameters = pvResource.getNodeParameters("service:vm:azure:test");
+		parameters.put(VmAzurePluginResource.PARAMETER_VM, "test1");
+		final var resource = newResource();
+		Assertions.assertEquals(VmStatus.POWERED_ON, resource.getVmDetails(parameters).getStatus());
+
+		final var vm = resource.getVmDetails(parameters);
+		checkItem(vm);
+		Assertions.assertEquals(VmStatus.POWERED_OFF, vm.getStatus());
+		Assertions.assertTrue(vm.isDeployed());
+		Assertions.assertEquals(2, vm.getNetworks().size());
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1")));
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView")));
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1/providers/Microsoft.Network/networkInterfaces/test1637")));
+	}
+
+	@Test
+	void receiveEventsValidation() throws Exception {
+		configuration.put("service:vm:azure:event-secret", "secret");
+		final var resource = newResource();
+		final var events = new ArrayList<Object>();
+		resource.eventPublisher = events::add;
+		final var event = new AzureEvent();
+		event.setEventType(AzureEvent.VALIDATION_EVENT);
+		event.setData(new AzureEvent.AzureEventData());
+		event.getData().setValidationCode("CODE");
+
+		// The other events of the same delivery are processed
+		Assertions.assertEquals("CODE", resource.receiveEvents("secret",
+				List.of(event, newEvent(COMPUTE_URL + "/test1", null))).get("validationResponse"));
+		Assertions.assertEquals(1, events.size());
+	}
+
+	@Test
+	void receiveEventsNoData() {
+		configuration.put("service:vm:azure:event-secret", "secret");
+		final var event = new AzureEvent();
+		event.setEventType(AzureEvent.VALIDATION_EVENT);
+		Assertions.assertThrows(BadRequestException.class, () -> resource.receiveEvents("secret", List.of(event)));
+	}
+
+	@Test
+	void receiveEvents() throws Exception {
+		prepareMockVm();
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		final var resource = newResource();
+		final var events = new ArrayList<Object>();
+		resource.eventPublisher = events::add;
+		configuration.put("service:vm:azure:event-secret", "secret");
+
+		// The topology is cached
+		resource.getVmDetails(parameters);
+		resource.getVmDetails(parameters);
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1")));
+
+		// Pushed change invalidates the topology
+		Assertions.assertNull(resource.receiveEvents("secret",
+				List.of(newEvent(COMPUTE_URL.toUpperCase(Locale.ROOT) + "/test1",
+						"Microsoft.Compute/virtualMachines/start/action"), newEvent(COMPUTE_URL + "/test2", null),
+						newEvent("/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1", null))));
+		Assertions.assertEquals(1, events.size());
+		final var event = (AzureVmEvent) events.getFirst();
+		Assertions.assertEquals(subscription, event.getSubscription());
+		Assertions.assertEquals("00000000-0000-0000-0000-000000000000", event.getAzSub());
+		Assertions.assertEquals("GROUP1", event.getGroup());
+		Assertions.assertEquals("test1", event.getVm());
+		Assertions.assertEquals("start", event.getOperation());
+		Assertions.assertEquals("Succeeded", event.getStatus());
+
+		resource.getVmDetails(parameters);
+		httpServer.verify(2, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1")));
+	}
+
+	@Test
+	void receiveEventsOtherGroup() throws Exception {
+		final var resource = newResource();
+		final var events = new ArrayList<Object>();
+		resource.eventPublisher = events::add;
+		configuration.put("service:vm:azure:event-secret", "secret");
+		resource.receiveEvents("secret",
+				List.of(newEvent(COMPUTE_URL.replace("group1", "group2") + "/test1", null)));
+		Assertions.assertTrue(events.isEmpty());
+	}
+
+	@Test
+	void receiveEventsNoBody() {
+		configuration.put("service:vm:azure:event-secret", "secret");
+		Assertions.assertThrows(BadRequestException.class, () -> resource.receiveEvents("secret", null));
+		Assertions.assertThrows(BadRequestException.class, () -> resource.receiveEvents("secret", List.of()));
+		final var events = new ArrayList<AzureEvent>();
+		events.add(null);
+		Assertions.assertThrows(BadRequestException.class, () -> resource.receiveEvents("secret", events));
+	}
+
+	@Test
+	void receiveEventsAnonymous() {
+		configuration.put("service:vm:azure:event-secret", "secret");
+		final var event = new AzureEvent();
+		event.setEventType(AzureEvent.VALIDATION_EVENT);
+		event.setData(new AzureEvent.AzureEventData());
+		event.getData().setValidationCode("CODE");
+
+		// Outside the authenticated service URLs, and without security context
+		Assertions.assertEquals("/public/service/vm/azure/events",
+				AzureEventResource.class.getAnnotation(Path.class).value());
+		SecurityContextHolder.clearContext();
+		Assertions.assertEquals("CODE", eventResource.receiveEvents("secret", List.of(event)).get("validationResponse"));
+		Assertions.assertThrows(ForbiddenException.class, () -> eventResource.receiveEvents("other", List.of(event)));
+		Assertions.assertThrows(BadRequestException.class, () -> eventResource.receiveEvents("secret", null));
+	}
+
+	@Test
+	void receiveEventsNoSecret() {
+		final var events = List.of(newEvent(COMPUTE_URL + "/test2", null));
+		Assertions.assertThrows(ForbiddenException.class, () -> resource.receiveEvents(null, events));
+		Assertions.assertThrows(ForbiddenException.class, () -> resource.receiveEvents("", events));
+	}
+
+	@Test
+	void receiveEventsSecret() {
+		configuration.put("service:vm:azure:event-secret", "secret");
+		final var events = List.of(newEvent(COMPUTE_URL + "/test2", null));
+		Assertions.assertThrows(ForbiddenException.class, () -> resource.receiveEvents(null, events));
+		Assertions.assertThrows(ForbiddenException.class, () -> resource.receiveEvents("other", events));
+		Assertions.assertNull(resource.receiveEvents("secret", events));
+	}
+
+	@Test
+	void streamStatus() {
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		resource.evictVmSnapshot("00000000-0000-0000-0000-000000000000", "group1",
+				resource.getCredentials(parameters));
+		final var sink = Mockito.mock(SseEventSink.class);
+		final var size = statusStream.getSize();
+		resource.streamStatus(List.of(subscription), sink, Mockito.mock(Sse.class));
+		Assertions.assertEquals(size + 1, statusStream.getSize());
+
+		// Closed stream is released with the next change
+		Mockito.doReturn(true).when(sink).isClosed();
+		final var state = new AzureVmState();
+		state.setStatus(VmStatus.POWERED_ON);
+		applicationContext.publishEvent(
+				new AzureVmEvent(subscription, "00000000-0000-0000-0000-000000000000", "group1", "test1", null, null,
+						state));
+		Assertions.assertEquals(size, statusStream.getSize());
+		Mockito.verify(sink, Mockito.never()).send(ArgumentMatchers.any());
+	}
+
+	@Test
+	void streamStatusRefreshed() throws Exception {
+		prepareMockInventory();
+		final var refresher = newRefresher();
+		Assertions.assertEquals(1, refresher.refresh());
+
+		final var sink = Mockito.mock(SseEventSink.class);
+		Mockito.doReturn(CompletableFuture.completedFuture(null)).when(sink).send(ArgumentMatchers.any());
+		final var builder = Mockito.mock(OutboundSseEvent.Builder.class, Mockito.RETURNS_SELF);
+		Mockito.doReturn(Mockito.mock(OutboundSseEvent.class)).when(builder).build();
+		final var sse = Mockito.mock(Sse.class);
+		Mockito.doReturn(builder).when(sse).newEventBuilder();
+
+		// The refreshed state is sent on connection, without request
+		refresher.resource.streamStatus(List.of(subscription), sink, sse);
+		Mockito.verify(builder).data("{\"status\":\"POWERED_ON\",\"busy\":false,\"deployed\":true,\"subscription\":"
+				+ subscription + "}");
+		Mockito.verify(sink).send(ArgumentMatchers.any());
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(COMPUTE_URL)));
+	}
+
+	private AzureEvent newEvent(final String subject, final String operation) {
+		final var event = new AzureEvent();
+		event.setEventType("Microsoft.Resources.ResourceActionSuccess");
+		event.setSubject(subject);
+		event.setData(new AzureEvent.AzureEventData());
+		event.getData().setOperationName(operation);
+		event.getData().setStatus("Succeeded");
+		return event;
+	}
+
 	private void checkVm(final AzureVm item) {
 		checkItem(item);
 		Assertions.assertEquals("westeurope", item.getLocation());
@@ -278,6 +565,338 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 		Assertions.assertNull(vm.getNetworks().getFirst().getDns());
 	}
 
+	@Test
+	void checkSubscriptionStatusFromSnapshot() throws Exception {
+		prepareMockInventory();
+
+		final var resource = newResource();
+		final var nodeStatusWithData = resource.checkSubscriptionStatus(subscription, null,
+				subscriptionResource.getParametersNoCheck(subscription));
+		Assertions.assertTrue(nodeStatusWithData.getStatus().isUp());
+		final var vm = (AzureVm) nodeStatusWithData.getData().get("vm");
+		checkItem(vm);
+		Assertions.assertEquals(VmStatus.POWERED_ON, vm.getStatus());
+		Assertions.assertFalse(vm.isBusy());
+		Assertions.assertEquals(2, vm.getNetworks().size());
+
+		// The snapshot is shared by the VMs of the same resource group
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		final var snapshot = resource.self.getVmSnapshot("00000000-0000-0000-0000-000000000000", "group1",
+				resource.getCredentials(parameters), parameters);
+		Assertions.assertEquals(2, snapshot.size());
+		Assertions.assertEquals("vm-id-2", snapshot.get("test2").getProperties().getVmId());
+	}
+
+	@Test
+	void refreshInventory() throws Exception {
+		prepareMockInventory();
+
+		final var refresher = newRefresher();
+		Assertions.assertEquals(1, refresher.refresh());
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(COMPUTE_URL)));
+
+		// The status is read from the refreshed snapshot
+		final var nodeStatusWithData = refresher.resource.checkSubscriptionStatus(subscription, null,
+				subscriptionResource.getParametersNoCheck(subscription));
+		Assertions.assertEquals(VmStatus.POWERED_ON, ((AzureVm) nodeStatusWithData.getData().get("vm")).getStatus());
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(COMPUTE_URL)));
+		httpServer.verify(0, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1")));
+
+		// Stable resource group is not refreshed before its delay
+		Assertions.assertEquals(0, refresher.refresh());
+
+		// A change of a VM makes its resource group due
+		refresher.onVmEvent(new AzureVmEvent(subscription, "00000000-0000-0000-0000-000000000000", "GROUP1", "test1",
+				"start", "Succeeded"));
+		Assertions.assertEquals(1, refresher.refresh());
+		httpServer.verify(2, getRequestedFor(urlPathEqualTo(COMPUTE_URL)));
+	}
+
+	@Test
+	void putInstanceSizesInvalidation() throws Exception {
+		final var invalidations = new LinkedBlockingQueue<String>();
+		final var topic = azureCache.getHazelcastInstance().<String>getTopic("azure-sizes-invalidations");
+		final var listener = topic.addMessageListener(m -> invalidations.add(m.getMessageObject()));
+		try {
+			// The local copies of the other members are invalidated
+			resource.putInstanceSizes("00000000-0000-0000-0000-000000000000", "westeurope", new HashMap<>());
+			Assertions.assertEquals("00000000-0000-0000-0000-000000000000/westeurope",
+					invalidations.poll(5, TimeUnit.SECONDS));
+		} finally {
+			topic.removeMessageListener(listener);
+		}
+	}
+
+	@Test
+	void isLeader() {
+		// Single member cluster
+		Assertions.assertTrue(azureCache.isLeader());
+	}
+
+	@Test
+	void refreshInventoryChangedDuringListing() throws Exception {
+		prepareMockInventory();
+		final var refresher = newRefresher();
+		Assertions.assertEquals(1, refresher.refresh());
+
+		// A change received during the next listing is not lost
+		refresher.onVmEvent(new AzureVmEvent(subscription, "00000000-0000-0000-0000-000000000000", "group1", "test1",
+				"start", "Succeeded"));
+		Mockito.doAnswer(i -> {
+			refresher.onVmEvent(new AzureVmEvent(subscription, "00000000-0000-0000-0000-000000000000", "group1",
+					"test1", "start", "Succeeded"));
+			return i.callRealMethod();
+		}).when(refresher.resource).refreshVmSnapshots(ArgumentMatchers.any(), ArgumentMatchers.anyInt());
+		Assertions.assertEquals(1, refresher.refresh());
+		Assertions.assertEquals(1, refresher.refresh());
+		httpServer.verify(3, getRequestedFor(urlPathEqualTo(COMPUTE_URL)));
+	}
+
+	@Test
+	void getVmSnapshotFailed() throws Exception {
+		prepareMockAuth();
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL)).willReturn(aResponse().withStatus(HttpStatus.SC_NOT_FOUND)));
+		httpServer.start();
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		Assertions.assertTrue(resource.getVmSnapshot("00000000-0000-0000-0000-000000000000", "group1",
+				resource.getCredentials(parameters), parameters).isEmpty());
+
+		// The failure is not cached
+		stubFindVmStatus();
+		Assertions.assertEquals(2, resource.getVmSnapshot("00000000-0000-0000-0000-000000000000", "group1",
+				resource.getCredentials(parameters), parameters).size());
+	}
+
+	@Test
+	void getVmSnapshotOtherCredentials() throws Exception {
+		prepareMockAuth();
+		stubFindVmStatus();
+		httpServer.start();
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		final var other = new HashMap<>(parameters);
+		other.put(AbstractAzureToolPluginResource.PARAMETER_KEY, "other-secret");
+
+		// Same application and Azure subscription, but other credentials: the snapshot is not shared
+		resource.putVmSnapshot("00000000-0000-0000-0000-000000000000", "group1", resource.getCredentials(other),
+				new HashMap<>());
+		Assertions.assertEquals(2, resource.getVmSnapshot("00000000-0000-0000-0000-000000000000", "group1",
+				resource.getCredentials(parameters), parameters).size());
+	}
+
+	@Test
+	void refreshInventoryFailed() throws Exception {
+		prepareMockAuth();
+		httpServer.start();
+
+		// The resource group cannot be listed
+		Assertions.assertEquals(0, newRefresher().refresh());
+	}
+
+	@Test
+	void refreshSizes() throws Exception {
+		prepareMockInventory();
+		httpServer.stubFor(get(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/skus"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/azure/list-skus.json").getInputStream(),
+						StandardCharsets.UTF_8))));
+
+		// All locations with a single call, except the one not available for the subscription
+		final var refresher = newRefresher();
+		Assertions.assertEquals(2, refresher.refreshSizes());
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/skus")));
+
+		// The sizes are read from the cache
+		final var vm = (AzureVm) refresher.resource.checkSubscriptionStatus(subscription, null,
+				subscriptionResource.getParametersNoCheck(subscription)).getData().get("vm");
+		Assertions.assertEquals(1, vm.getCpu());
+		Assertions.assertEquals(3584, vm.getRam());
+		httpServer.verify(0, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/locations/westeurope/vmSizes")));
+	}
+
+	@Test
+	void refreshInstanceSizesAhead() throws Exception {
+		prepareMockVm();
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		final var resource = newResource();
+		resource.getVmDetails(parameters);
+
+		// The sizes loaded on demand are not yet due
+		Assertions.assertEquals(0, resource.refreshInstanceSizesAhead(a -> parameters, TimeUnit.HOURS.toMillis(1)));
+
+		// Loaded again ahead of their expiry
+		Assertions.assertEquals(1, resource.refreshInstanceSizesAhead(a -> parameters, 0));
+		httpServer.verify(2, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/locations/westeurope/vmSizes")));
+
+		// No more used Azure subscription
+		Assertions.assertEquals(0, resource.refreshInstanceSizesAhead(a -> null, 0));
+		Assertions.assertEquals(0, resource.refreshInstanceSizesAhead(a -> parameters, 0));
+	}
+
+	@Test
+	void getVmDetailsNearSizes() throws Exception {
+		prepareMockVm();
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		final var resource = newResource();
+		resource.getVmDetails(parameters);
+		final var metrics = resource.self.getMetrics();
+		resource.self.evictVmTopology("00000000-0000-0000-0000-000000000000", "group1",
+				"99990000-1111-2222-3333-444455556666", "test1");
+
+		// The second topology load reads the sizes from the local copy
+		Assertions.assertEquals(4048, resource.getVmDetails(parameters).getRam());
+		Assertions.assertEquals(metrics.get("sizes-near-hits") + 1, resource.self.getMetrics().get("sizes-near-hits"));
+		Assertions.assertEquals(metrics.get("sizes-near-misses"), resource.self.getMetrics().get("sizes-near-misses"));
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/locations/westeurope/vmSizes")));
+	}
+
+	@Test
+	void getInstanceSizesFailed() throws Exception {
+		prepareMockAuth();
+		httpServer.start();
+		final var parameters = subscriptionResource.getParametersNoCheck(subscription);
+		final var resource = newResource();
+		resource.authenticate(parameters);
+
+		// The failure is cached, Azure is requested once
+		Assertions.assertThrows(IOException.class,
+				() -> resource.self.getInstanceSizes("00000000-0000-0000-0000-000000000000", "westeurope", parameters));
+		Assertions.assertThrows(IOException.class,
+				() -> resource.self.getInstanceSizes("00000000-0000-0000-0000-000000000000", "westeurope", parameters));
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/locations/westeurope/vmSizes")));
+	}
+
+	@Test
+	void refreshSizesFailed() throws Exception {
+		prepareMockAuth();
+		httpServer.start();
+
+		// The sizes are still loaded on demand
+		Assertions.assertThrows(IllegalStateException.class, () -> newRefresher().refreshSizes());
+	}
+
+	@Test
+	void refreshSizesAhead() throws Exception {
+		prepareMockAuth();
+		httpServer.stubFor(get(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/skus"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/azure/list-skus.json").getInputStream(),
+						StandardCharsets.UTF_8))));
+		httpServer.start();
+
+		// Loaded once per interval
+		final var refresher = newRefresher();
+		Assertions.assertTrue(refresher.refreshSizesAhead());
+		Assertions.assertFalse(refresher.refreshSizesAhead());
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/skus")));
+	}
+
+	@Test
+	void refreshSizesAheadFailed() throws Exception {
+		prepareMockAuth();
+		httpServer.start();
+
+		// A failed load is retried at the next check
+		final var refresher = newRefresher();
+		Assertions.assertThrows(IllegalStateException.class, refresher::refreshSizesAhead);
+		Assertions.assertThrows(IllegalStateException.class, refresher::refreshSizesAhead);
+		httpServer.verify(2, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/providers/Microsoft.Compute/skus")));
+	}
+
+	private AzureInventoryRefresher newRefresher() throws Exception {
+		final var refresher = new AzureInventoryRefresher();
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(refresher);
+		refresher.resource = newResource();
+		return refresher;
+	}
+
+	@Test
+	void checkSubscriptionStatusSeveralNics() throws Exception {
+		prepareMockAuth();
+		prepareMockNetwork();
+
+		// Find a specific VM having two NICs
+		httpServer
+				.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1")).willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+						.withBody(IOUtils.toString(
+								new ClassPathResource("mock-server/azure/vm-on-two-nics.json").getInputStream(),
+								StandardCharsets.UTF_8))));
+		httpServer.stubFor(get(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1/providers/Microsoft.Network/networkInterfaces/test1638"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+						.withBody(IOUtils.toString(
+								new ClassPathResource("mock-server/azure/vm-nic-2.json").getInputStream(),
+								StandardCharsets.UTF_8))));
+		httpServer.start();
+
+		final var resource = newResource();
+		final var nodeStatusWithData = resource.checkSubscriptionStatus(subscription, null,
+				subscriptionResource.getParametersNoCheck(subscription));
+		final var vm = (AzureVm) nodeStatusWithData.getData().get("vm");
+
+		// Networks order is the one of the NIC references
+		Assertions.assertEquals(3, vm.getNetworks().size());
+		Assertions.assertEquals("10.0.4.20", vm.getNetworks().getFirst().getIp());
+		Assertions.assertEquals("private", vm.getNetworks().getFirst().getType());
+		Assertions.assertEquals("1.2.3.4", vm.getNetworks().get(1).getIp());
+		Assertions.assertEquals("public", vm.getNetworks().get(1).getType());
+		Assertions.assertEquals("10.0.4.21", vm.getNetworks().get(2).getIp());
+		Assertions.assertEquals("private", vm.getNetworks().get(2).getType());
+	}
+
+	@Test
+	void checkSubscriptionStatusBatch() throws Exception {
+		prepareMockAuth();
+
+		// Find a specific VM having two NICs
+		httpServer
+				.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1")).willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+						.withBody(IOUtils.toString(
+								new ClassPathResource("mock-server/azure/vm-on-two-nics.json").getInputStream(),
+								StandardCharsets.UTF_8))));
+
+		// Both NICs are returned by a single batch request, not in the requested order
+		final var nic1 = IOUtils.toString(
+				new ClassPathResource("mock-server/azure/vm-nic-with-public.json").getInputStream(),
+				StandardCharsets.UTF_8);
+		final var nic2 = IOUtils.toString(new ClassPathResource("mock-server/azure/vm-nic-2.json").getInputStream(),
+				StandardCharsets.UTF_8);
+		httpServer.stubFor(post(urlPathEqualTo("/batch")).willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+				.withBody("{\"responses\":[{\"name\":\"1\",\"httpStatusCode\":200,\"content\":" + nic2
+						+ "},{\"name\":\"0\",\"httpStatusCode\":200,\"content\":" + nic1 + "}]}")));
+		httpServer.stubFor(get(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1/providers/Microsoft.Network/publicIPAddresses/vm-0PublicIP"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+						.withBody(IOUtils.toString(
+								new ClassPathResource("mock-server/azure/vm-public-ip.json").getInputStream(),
+								StandardCharsets.UTF_8))));
+		httpServer.start();
+
+		final var resource = newResource();
+		final var nodeStatusWithData = resource.checkSubscriptionStatus(subscription, null,
+				subscriptionResource.getParametersNoCheck(subscription));
+		final var vm = (AzureVm) nodeStatusWithData.getData().get("vm");
+
+		// Networks order is the one of the NIC references
+		Assertions.assertEquals(3, vm.getNetworks().size());
+		Assertions.assertEquals("10.0.4.20", vm.getNetworks().getFirst().getIp());
+		Assertions.assertEquals("1.2.3.4", vm.getNetworks().get(1).getIp());
+		Assertions.assertEquals("10.0.4.21", vm.getNetworks().get(2).getIp());
+
+		// No NIC has been requested alone
+		httpServer.verify(1, postRequestedFor(urlPathEqualTo("/batch")));
+		httpServer.verify(0, getRequestedFor(urlPathEqualTo(
+				"/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/group1/providers/Microsoft.Network/networkInterfaces/test1637")));
+	}
+
 	@Test
 	void checkSubscriptionStatusNoSize() throws Exception {
 		prepareMockAuth();
@@ -358,6 +977,10 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 								.withBody(IOUtils.toString(
 										new ClassPathResource("mock-server/azure/vm-on.json").getInputStream(),
 										StandardCharsets.UTF_8))));
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/azure/vm-on-instance-view.json").getInputStream(),
+						StandardCharsets.UTF_8))));
 
 		prepareMockNetwork();
 
@@ -386,6 +1009,26 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 								StandardCharsets.UTF_8))));
 	}
 
+	/**
+	 * List the VMs of the resource group with their instance view.
+	 */
+	private void stubFindVmStatus() throws IOException {
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL)).willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+				.withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/azure/find-vm-status.json").getInputStream(),
+						StandardCharsets.UTF_8))));
+	}
+
+	/**
+	 * Expose the resource group listing with the networks, as read by the inventory refresher.
+	 */
+	private void prepareMockInventory() throws IOException {
+		prepareMockAuth();
+		prepareMockNetwork();
+		stubFindVmStatus();
+		httpServer.start();
+	}
+
 	private void prepareMockFindAll() throws IOException {
 		prepareMockAuth();
 
@@ -399,7 +1042,12 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 	@Test
 	void checkStatus() throws Exception {
 		prepareMockFindAll();
-		Assertions.assertTrue(newResource().checkStatus(subscriptionResource.getParametersNoCheck(subscription)));
+		final var resource = newResource();
+		Assertions.assertTrue(resource.checkStatus(subscriptionResource.getParametersNoCheck(subscription)));
+		Assertions.assertEquals(1L, resource.getMetrics().get("request-hits"));
+		Assertions.assertEquals(0L, resource.getMetrics().get("request-merges"));
+		Assertions.assertEquals(1L, resource.getMetrics().get("in-flight-requests"));
+		Assertions.assertEquals(0L, resource.getMetrics().get("in-flight"));
 	}
 
 	private VmAzurePluginResource newResource() throws InterruptedException, ExecutionException, MalformedURLException {
@@ -465,10 +1113,10 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 	}
 
 	/**
-	 * Authority is valid, but the token cannot be acquired
+	 * Authority is valid, the shared executor is never shutdown by an authentication.
 	 */
 	@Test
-	void checkStatusShutdownFailed() throws Exception {
+	void checkStatusNoShutdown() throws Exception {
 		prepareMockAuth();
 		httpServer.start();
 		final var taskExecutor = Mockito.mock(TaskExecutor.class);
@@ -479,8 +1127,59 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 				throw new IllegalStateException();
 			}
 		});
-		Assertions.assertThrows(IllegalStateException.class,
-				() -> resource.checkStatus(subscriptionResource.getParametersNoCheck(subscription)));
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class,
+				() -> resource.checkStatus(subscriptionResource.getParametersNoCheck(subscription))), AbstractAzureToolPluginResource.PARAMETER_SUBSCRIPTION, "azure-admin");
+		Mockito.verify(resource, Mockito.times(1)).newExecutorService();
+	}
+
+	/**
+	 * The authentication context of a tenant is reused.
+	 */
+	@Test
+	void authenticateReuseContext() throws Exception {
+		final var resource = newResource();
+		Assertions.assertEquals("-token-", resource.authenticate("11112222-3333-4444-5555-666677778888", "app", "key1"));
+		Assertions.assertEquals("-token-", resource.authenticate("11112222-3333-4444-5555-666677778888", "app", "key2"));
+		Mockito.verify(resource, Mockito.times(1)).newAuthenticationContext(ArgumentMatchers.anyString(),
+				ArgumentMatchers.any());
+		Mockito.verify(resource, Mockito.times(1)).newExecutorService();
+	}
+
+	/**
+	 * The token acquired by a node is reused by the other ones, without requesting the authority.
+	 */
+	@Test
+	void authenticateShared() throws Exception {
+		configuration.put(AzureTokenManager.CONF_SHARED, "true");
+		Assertions.assertEquals("-token-", newResource().authenticate("11112222-3333-4444-5555-666677778888", "app", "key1"));
+
+		// Simulate another node: no local token and no authority
+		tokenManager.clear();
+		Assertions.assertEquals("-token-",
+				newResourceFailed().authenticate("11112222-3333-4444-5555-666677778888", "app", "key1"));
+	}
+
+	/**
+	 * Sessions of the same principal with another tenant or secret never share the responses.
+	 */
+	@Test
+	void authenticateCredentials() throws Exception {
+		final var resource = newResource();
+		final var parameters = new HashMap<>(subscriptionResource.getParametersNoCheck(subscription));
+		final var session = resource.authenticate(parameters);
+		parameters.put(AbstractAzureToolPluginResource.PARAMETER_KEY, "other");
+		final var other = resource.authenticate(parameters);
+		Assertions.assertNotEquals(session.getCredentials(), other.getCredentials());
+		Assertions.assertFalse(other.getCredentials().contains("other"));
+	}
+
+	@Test
+	void getTokenKey() {
+		final var key = AbstractAzureToolPluginResource.getTokenKey("tenant", "app", "secret");
+		Assertions.assertEquals(64, key.length());
+		Assertions.assertFalse(key.contains("secret"));
+		Assertions.assertEquals(key, AbstractAzureToolPluginResource.getTokenKey("tenant", "app", "secret"));
+		Assertions.assertNotEquals(key, AbstractAzureToolPluginResource.getTokenKey("tenant", "app", "secret2"));
 	}
 
 	@Test
@@ -539,6 +1238,80 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 		checkItem(projects.getFirst());
 	}
 
+	@Test
+	void findAllByNameLimit() throws Exception {
+		initSpringSecurityContextAdmin(DEFAULT_USER);
+		prepareMockFindAll();
+		configuration.put("service:vm:azure:search-limit", "1");
+		final var resource = newResource();
+		final var projects = resource.findAllByName("service:vm:azure:test", "est");
+		Assertions.assertEquals(1, projects.size());
+		checkItem(projects.getFirst());
+	}
+
+	@Test
+	void findAllByNameLimitSorted() throws Exception {
+		initSpringSecurityContextAdmin(DEFAULT_USER);
+		prepareMockAuth();
+
+		// The VMs are listed in the reverse order
+		final var list = (ObjectNode) new ObjectMapper().readTree(
+				new ClassPathResource("mock-server/azure/find-vm.json").getInputStream());
+		final var vms = (ArrayNode) list.get("value");
+		vms.insert(0, vms.remove(1));
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody(list.toString())));
+		httpServer.start();
+		configuration.put("service:vm:azure:search-limit", "1");
+
+		// The limit is applied after the sort
+		final var projects = newResource().findAllByName("service:vm:azure:test", "est");
+		Assertions.assertEquals(1, projects.size());
+		checkItem(projects.getFirst());
+	}
+
+	@Test
+	void findAllByNameNextLink() throws Exception {
+		initSpringSecurityContextAdmin(DEFAULT_USER);
+		prepareMockAuth();
+
+		// First page is empty, second page is the usual list
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL)).willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+				.withBody("{\"value\":[],\"nextLink\":\"http://localhost:" + MOCK_PORT + "/next-page\"}")));
+		httpServer.stubFor(get(urlPathEqualTo("/next-page")).willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+				.withBody(IOUtils.toString(new ClassPathResource("mock-server/azure/find-vm.json").getInputStream(),
+						StandardCharsets.UTF_8))));
+		httpServer.start();
+		final var projects = newResource().findAllByName("service:vm:azure:test", "est");
+		Assertions.assertEquals(2, projects.size());
+		checkItem(projects.getFirst());
+	}
+
+	@Test
+	void findAllByNameNoValue() throws Exception {
+		initSpringSecurityContextAdmin(DEFAULT_USER);
+		prepareMockAuth();
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("{\"other\":{\"value\":[]}}")));
+		httpServer.start();
+		Assertions.assertEquals(0, newResource().findAllByName("service:vm:azure:test", "est").size());
+	}
+
+	@Test
+	void findAllByNameUnavailable() throws Exception {
+		initSpringSecurityContextAdmin(DEFAULT_USER);
+		prepareMockAuth();
+		configuration.put("service:vm:azure:retry-delay", "1");
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+		httpServer.start();
+
+		// Exhausted retries give an empty listing
+		final var resource = newResource();
+		Assertions.assertEquals(0, resource.findAllByName("service:vm:azure:test", "est").size());
+		Assertions.assertEquals(1L, resource.getMetrics().get("retry-exhausted"));
+	}
+
 	@Test
 	void findAllByNameNotFound() throws Exception {
 		initSpringSecurityContextAdmin(DEFAULT_USER);
@@ -568,6 +1341,129 @@ class VmAzurePluginResourceTest extends AbstractServerTest {
 		resource.execute(newExecution(subscription, VmOperation.OFF));
 	}
 
+	@Test
+	void getVmStatus() throws Exception {
+		prepareMockAuth();
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/azure/vm-deallocated-instance-view.json").getInputStream(),
+						StandardCharsets.UTF_8))));
+		httpServer.start();
+
+		final var state = newResource().getVmStatus(subscriptionResource.getParametersNoCheck(subscription));
+		Assertions.assertEquals(VmStatus.POWERED_OFF, state.getStatus());
+		Assertions.assertFalse(state.isBusy());
+		Assertions.assertTrue(state.isDeployed());
+
+		// Only the instance view is requested
+		httpServer.verify(0, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1")));
+	}
+
+	@Test
+	void getVmStatusThrottled() throws Exception {
+		prepareMockAuth();
+		configuration.put("service:vm:azure:retry-delay", "1");
+
+		// First attempt is throttled, then accepted
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView")).inScenario("throttling")
+				.whenScenarioStateIs(Scenario.STARTED).willSetStateTo("accepted")
+				.willReturn(aResponse().withStatus(HttpStatus.SC_TOO_MANY_REQUESTS).withHeader("Retry-After", "0")));
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView")).inScenario("throttling")
+				.whenScenarioStateIs("accepted")
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/azure/vm-deallocated-instance-view.json").getInputStream(),
+						StandardCharsets.UTF_8))));
+		httpServer.start();
+
+		final var resource = newResource();
+		Assertions.assertEquals(VmStatus.POWERED_OFF,
+				resource.getVmStatus(subscriptionResource.getParametersNoCheck(subscription)).getStatus());
+		Assertions.assertEquals(1L, resource.getMetrics().get("retry-attempts"));
+		httpServer.verify(2, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView")));
+	}
+
+	@Test
+	void getVmStatusUnavailable() throws Exception {
+		prepareMockAuth();
+		configuration.put("service:vm:azure:retry-delay", "1");
+		httpServer.stubFor(get(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+		httpServer.start();
+
+		// Not confused with a not found VM
+		final var resource = newResource();
+		Assertions.assertEquals("azure-unavailable", Assertions.assertThrows(BusinessException.class,
+				() -> resource.getVmStatus(subscriptionResource.getParametersNoCheck(subscription))).getMessage());
+		Assertions.assertEquals(3L, resource.getMetrics().get("retry-attempts"));
+		Assertions.assertEquals(1L, resource.getMetrics().get("retry-exhausted"));
+		httpServer.verify(4, getRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1/instanceView")));
+	}
+
+	@Test
+	void getVmStatusNotFound() throws Exception {
+		prepareMockAuth();
+		httpServer.start();
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class,
+				() -> newResource().getVmStatus(subscriptionResource.getParametersNoCheck(subscription))),
+				VmAzurePluginResource.PARAMETER_VM, "azure-vm");
+	}
+
+	@Test
+	void executeAndTrack() throws Exception {
+		prepareMockVm();
+		final var resource = newResource();
+
+		// Operation is accepted, then completed
+		httpServer.stubFor(post(urlPathEqualTo(COMPUTE_URL + "/test1/powerOff"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_ACCEPTED)
+						.withHeader("Azure-AsyncOperation", "http://localhost:" + MOCK_PORT + "/operations/1")
+						.withHeader("Retry-After", "0")));
+		httpServer.stubFor(get(urlPathEqualTo("/operations/1")).willReturn(
+				aResponse().withStatus(HttpStatus.SC_OK).withBody("{\"status\":\"Succeeded\"}")));
+
+		// Status from ON to OFF
+		Assertions.assertEquals(AzureOperationTracker.SUCCEEDED,
+				resource.executeAndTrack(newExecution(subscription, VmOperation.OFF)).get(10, TimeUnit.SECONDS));
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo("/operations/1")));
+
+		// The poll uses the current token, not the one of the operation request
+		Mockito.verify(resource, Mockito.times(2)).authenticate(subscriptionResource.getParametersNoCheck(subscription));
+	}
+
+	@Test
+	void executeAndTrackUselessAction() throws Exception {
+		prepareMockVm();
+		Assertions.assertNull(newResource().executeAndTrack(newExecution(subscription, VmOperation.ON)).get());
+	}
+
+	@Test
+	void executeBulk() throws Exception {
+		prepareMockVm();
+		final var resource = newResource(Executors.newVirtualThreadPerTaskExecutor());
+		httpServer.stubFor(post(urlPathEqualTo(COMPUTE_URL + "/test1/powerOff"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK)));
+
+		// Same credentials: one useless operation, one executed operation
+		final var results = resource.executeBulk(List.of(newExecution(subscription, VmOperation.ON),
+				newExecution(subscription, VmOperation.OFF)));
+		Assertions.assertEquals(2, results.size());
+		Assertions.assertNull(results.getFirst().get(10, TimeUnit.SECONDS));
+		Assertions.assertEquals(AzureOperationTracker.SUCCEEDED, results.get(1).get(10, TimeUnit.SECONDS));
+		httpServer.verify(1, postRequestedFor(urlPathEqualTo(COMPUTE_URL + "/test1/powerOff")));
+	}
+
+	@Test
+	void executeBulkFailed() throws Exception {
+		prepareMockVm();
+
+		// Execution failed : not mocked execution URL
+		final var results = newResource(Executors.newVirtualThreadPerTaskExecutor())
+				.executeBulk(List.of(newExecution(subscription, VmOperation.OFF)));
+		final var e = Assertions.assertThrows(ExecutionException.class,
+				() -> results.getFirst().get(10, TimeUnit.SECONDS));
+		Assertions.assertEquals("vm-operation-execute", e.getCause().getMessage());
+	}
+
 	private VmExecution newExecution(final int subscription, final VmOperation operation) {
 		final var execution = new VmExecution();
 		execution.setSubscription(em.find(Subscription.class, subscription));
@@ -0,0 +1,34 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.vmazure;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+
+/**
+ * Test class of {@link VmSize}
+ */
+class VmSizeTest {
+
+	@Test
+	void serialize() {
+		final var service = new DefaultSerializationServiceBuilder().build();
+		final var size = new VmSize("Standard_DS1_v2");
+		size.setNumberOfCores(1);
+		size.setMemoryInMB(3584);
+		final var sizes = new HashMap<String, VmSize>();
+		sizes.put(size.getName(), size);
+
+		final Map<String, VmSize> copy = service.toObject(service.toData(sizes));
+		final var sizeCopy = copy.get("Standard_DS1_v2");
+		Assertions.assertEquals("Standard_DS1_v2", sizeCopy.getName());
+		Assertions.assertEquals(1, sizeCopy.getNumberOfCores());
+		Assertions.assertEquals(3584, sizeCopy.getMemoryInMB());
+	}
+}
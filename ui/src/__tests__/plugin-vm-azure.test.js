@@ -81,6 +81,43 @@ describe('plugin-vm-azure manifest', () => {
   })
 })
 
+describe('plugin-vm-azure status stream', () => {
+  let sources
+  beforeEach(() => {
+    sources = []
+    globalThis.EventSource = class {
+      constructor(url, options) {
+        this.url = url
+        this.options = options
+        this.listeners = {}
+        this.closed = false
+        sources.push(this)
+      }
+      addEventListener(name, listener) { this.listeners[name] = listener }
+      close() { this.closed = true }
+    }
+  })
+  afterEach(() => {
+    delete globalThis.EventSource
+  })
+
+  it('watchStatus streams the state deltas of the given subscriptions', () => {
+    const deltas = []
+    const close = pluginVmAzureDef.feature('watchStatus', [1, 2], (delta) => deltas.push(delta))
+    expect(sources).toHaveLength(1)
+    expect(sources[0].url).toBe('rest/service/vm/azure/stream?subscription=1&subscription=2')
+    sources[0].listeners.vm({ data: '{"busy":true,"subscription":1}' })
+    expect(deltas).toEqual([{ busy: true, subscription: 1 }])
+    close()
+    expect(sources[0].closed).toBe(true)
+  })
+
+  it('watchStatus does not open a stream without subscription', () => {
+    pluginVmAzureDef.feature('watchStatus', [], () => {})()
+    expect(sources).toHaveLength(0)
+  })
+})
+
 describe('plugin-vm → plugin-vm-azure delegation', () => {
   beforeEach(() => {
     pluginVmDef.install({ router: { addRoute() {} } })
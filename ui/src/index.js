@@ -10,6 +10,8 @@
  *     auto-rendered parameter form shows friendly names.
  *   - feature('renderFeatures', subscription): the Azure portal deep link.
  *   - feature('renderDetailsKey', subscription): the VM name chip.
+ *   - feature('watchStatus', subscriptions, onChange): the VM state deltas
+ *     pushed by the server, replacing the status polling.
  *
  * The parent `plugin-vm` merges these into its subscription-row output
  * through its `subPluginIdFor(...)` delegation hook.
@@ -26,6 +28,7 @@ import service from './service.js'
 const features = {
   renderFeatures: service.renderFeatures,
   renderDetailsKey: service.renderDetailsKey,
+  watchStatus: service.watchStatus,
 }
 
 export default {
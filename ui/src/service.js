@@ -11,6 +11,7 @@
  *   - renderFeatures        → a deep link to this VM in the Azure portal.
  *   - renderDetailsKey      → the VM name chip (the resource identifier),
  *     mirroring the legacy `renderKey('service:vm:azure:name')`.
+ *   - watchStatus           → the VM state deltas pushed by the server.
  *
  * The legacy `renderDetailsKey` carousel also showed live
  * `subscription.data.vm` fields (os, cpu/ram/disk, location) — that data
@@ -62,4 +63,22 @@ function renderDetailsKey(subscription) {
   return renderDetailsChip({ icon: 'mdi-microsoft-azure', text: name, title: t('service:vm:azure:name') })
 }
 
-export default { renderFeatures, renderDetailsKey }
+/**
+ * Follow the VM state changes of the given subscriptions through the
+ * Server-Sent Events stream of this plugin, instead of polling the
+ * subscription status. Each "vm" event holds the subscription identifier
+ * and only the changed fields among `status`, `busy` and `deployed`.
+ *
+ * @param {number[]} subscriptions The subscription identifiers to follow.
+ * @param {Function} onChange Called with each `{ subscription, ...delta }`.
+ * @returns {Function} Closes the stream.
+ */
+function watchStatus(subscriptions, onChange) {
+  if (!subscriptions?.length || typeof EventSource === 'undefined') return () => {}
+  const query = subscriptions.map((s) => `subscription=${encodeURIComponent(s)}`).join('&')
+  const source = new EventSource(`rest/service/vm/azure/stream?${query}`, { withCredentials: true })
+  source.addEventListener('vm', (event) => onChange(JSON.parse(event.data)))
+  return () => source.close()
+}
+
+export default { renderFeatures, renderDetailsKey, watchStatus }